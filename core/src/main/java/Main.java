@@ -23,6 +23,7 @@
  */
 
 import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.Preprocessor;
 import edu.ucr.cs.riple.core.util.Utility;
 import edu.ucr.cs.riple.injector.Fix;
 import edu.ucr.cs.riple.injector.Injector;
@@ -30,7 +31,9 @@ import edu.ucr.cs.riple.injector.WorkListBuilder;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Main {
   public static void main(String[] args) {
@@ -43,18 +46,33 @@ public class Main {
         apply(args);
         break;
       case "explore":
-        explore(args);
+        explore(args, false);
+        break;
+      case "run":
+        explore(args, true);
+        break;
+      case "preprocess":
+        preprocess(args);
         break;
       default:
         throw new RuntimeException("Unknown command: " + command);
     }
   }
 
-  private static void explore(String[] args) {
+  /**
+   * Runs the exploration over the target project.
+   *
+   * @param args Arguments of the command.
+   * @param iterate If true, effective fixes are applied and the exploration is repeated until no
+   *     new fix is suggested.
+   */
+  private static void explore(String[] args, boolean iterate) {
     Annotator annotator = new Annotator();
-    if (args.length != 6) {
+    if (args.length < 6) {
       throw new RuntimeException(
-          "Annotator:explore needs 5 arguments: 1. command to execute NullAway, "
+          "Annotator:"
+              + args[0]
+              + " needs 5 arguments: 1. command to execute NullAway, "
               + "2. output directory, 3. Annotator Depth level, 4. Nullable Annotation, 5. style but received: "
               + Arrays.toString(args));
     }
@@ -63,7 +81,98 @@ public class Main {
     annotator.depth = Integer.parseInt(args[3]);
     annotator.nullableAnnot = args[4];
     annotator.lexicalPreservationEnabled = Boolean.parseBoolean(args[5]);
-    annotator.start(runCommand, configPath, true);
+    Map<String, String> options = readOptions(args, 6);
+    if (options.containsKey("compiler-args")) {
+      annotator.compilerArgsPath = Paths.get(options.get("compiler-args"));
+    }
+    annotator.incremental = Boolean.parseBoolean(options.get("incremental"));
+    if (annotator.incremental && annotator.compilerArgsPath == null) {
+      throw new RuntimeException("Incremental builds require --compiler-args");
+    }
+    if (options.containsKey("build-cache")) {
+      annotator.buildCacheDir = Paths.get(options.get("build-cache"));
+    }
+    if (options.containsKey("build-cache-size")) {
+      // Given in megabytes.
+      annotator.buildCacheSize = Long.parseLong(options.get("build-cache-size")) * 1024 * 1024;
+    }
+    if (options.containsKey("result-store")) {
+      annotator.resultStorePath = Paths.get(options.get("result-store"));
+    }
+    if (options.containsKey("module-map")) {
+      annotator.moduleMapPath = Paths.get(options.get("module-map"));
+      annotator.moduleBuildCommand = options.get("module-command");
+    }
+    annotator.overlayEnabled = Boolean.parseBoolean(options.get("overlay"));
+    annotator.resume = Boolean.parseBoolean(options.get("resume"));
+    annotator.bisect = Boolean.parseBoolean(options.get("bisect"));
+    annotator.pipeline = Boolean.parseBoolean(options.get("pipeline"));
+    // Build commands replace the original files with the overlay while building, which races with
+    // staging the next group from the original files.
+    if (annotator.pipeline && (!annotator.overlayEnabled || annotator.compilerArgsPath == null)) {
+      throw new RuntimeException("Pipelined exploration requires --overlay and --compiler-args");
+    }
+    if (options.containsKey("deep-min-gain")) {
+      annotator.deepMinGain = Integer.parseInt(options.get("deep-min-gain"));
+    }
+    if (options.containsKey("deep-min-changed")) {
+      annotator.deepMinChanged = Integer.parseInt(options.get("deep-min-changed"));
+    }
+    annotator.deepFreeze = Boolean.parseBoolean(options.get("deep-freeze"));
+    if (options.containsKey("time-budget")) {
+      // Given in seconds.
+      annotator.timeBudget = Long.parseLong(options.get("time-budget"));
+    }
+    if (options.containsKey("build-budget")) {
+      annotator.buildBudget = Integer.parseInt(options.get("build-budget"));
+    }
+    if (options.containsKey("workers")) {
+      annotator.workers = Integer.parseInt(options.get("workers"));
+    }
+    if (options.containsKey("project-root")) {
+      annotator.projectRoot = Paths.get(options.get("project-root"));
+    }
+    if (iterate) {
+      annotator.run(runCommand, configPath);
+    } else {
+      annotator.start(runCommand, configPath, true);
+    }
+  }
+
+  /**
+   * Reads optional arguments in the form of {@code --key=value} (or {@code --key} for flags)
+   * starting at the given index.
+   */
+  private static Map<String, String> readOptions(String[] args, int from) {
+    Map<String, String> options = new HashMap<>();
+    for (int i = from; i < args.length; i++) {
+      String arg = args[i];
+      if (!arg.startsWith("--")) {
+        throw new RuntimeException("Unknown argument: " + arg);
+      }
+      int index = arg.indexOf('=');
+      if (index < 0) {
+        options.put(arg.substring(2), "true");
+      } else {
+        options.put(arg.substring(2, index), arg.substring(index + 1));
+      }
+    }
+    return options;
+  }
+
+  private static void preprocess(String[] args) {
+    if (args.length != 7) {
+      throw new RuntimeException(
+          "Annotator:preprocess needs 6 arguments: 1. path to NullAway config, 2. command to execute NullAway, "
+              + "3. Nullable Annotation, 4. Nonnull Annotation, 5. Initializer Annotation, 6. style but received: "
+              + Arrays.toString(args));
+    }
+    Preprocessor preprocessor = new Preprocessor();
+    preprocessor.nullableAnnot = args[3];
+    preprocessor.nonnullAnnot = args[4];
+    preprocessor.initializerAnnot = args[5];
+    preprocessor.lexicalPreservationEnabled = Boolean.parseBoolean(args[6]);
+    preprocessor.start(args[2], Paths.get(args[1]));
   }
 
   private static void apply(String[] args) {
@@ -28,29 +28,55 @@ import com.google.common.base.Preconditions;
 import com.uber.nullaway.fixserialization.FixSerializationConfig;
 import edu.ucr.cs.css.Serializer;
 import edu.ucr.cs.css.XMLUtil;
-import edu.ucr.cs.riple.core.explorers.BasicExplorer;
+import edu.ucr.cs.riple.core.cache.BuildCache;
+import edu.ucr.cs.riple.core.cache.Journal;
+import edu.ucr.cs.riple.core.cache.ResultStore;
+import edu.ucr.cs.riple.core.engine.BuildEngine;
+import edu.ucr.cs.riple.core.engine.CommandBuildEngine;
+import edu.ucr.cs.riple.core.engine.IncrementalBuildEngine;
+import edu.ucr.cs.riple.core.engine.JavacBuildEngine;
+import edu.ucr.cs.riple.core.engine.ModuleBuildEngine;
 import edu.ucr.cs.riple.core.explorers.DeepExplorer;
 import edu.ucr.cs.riple.core.explorers.DummyExplorer;
 import edu.ucr.cs.riple.core.explorers.Explorer;
+import edu.ucr.cs.riple.core.explorers.FallbackExplorer;
 import edu.ucr.cs.riple.core.explorers.FieldExplorer;
 import edu.ucr.cs.riple.core.explorers.MethodExplorer;
 import edu.ucr.cs.riple.core.explorers.ParameterExplorer;
+import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
+import edu.ucr.cs.riple.core.metadata.graph.Node;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.index.FixEntity;
 import edu.ucr.cs.riple.core.metadata.method.MethodInheritanceTree;
+import edu.ucr.cs.riple.core.metadata.modules.ModuleMap;
 import edu.ucr.cs.riple.core.metadata.trackers.FieldRegionTracker;
 import edu.ucr.cs.riple.core.metadata.trackers.MethodRegionTracker;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.util.ReportWriter;
 import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.core.workers.Budget;
+import edu.ucr.cs.riple.core.workers.CostModel;
+import edu.ucr.cs.riple.core.workers.Overlay;
+import edu.ucr.cs.riple.core.workers.Worker;
+import edu.ucr.cs.riple.core.workers.WorkerPool;
 import edu.ucr.cs.riple.injector.Fix;
 import edu.ucr.cs.riple.injector.Injector;
-import edu.ucr.cs.riple.injector.WorkListBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import org.json.simple.JSONObject;
 
 public class Annotator {
 
@@ -62,12 +88,88 @@ public class Annotator {
   public String nullableAnnot;
   public int depth;
   public boolean lexicalPreservationEnabled;
+  /** If set, the project is compiled in process with the javac arguments at this path. */
+  public Path compilerArgsPath;
+  /** If set, in process builds only re-check compilation units affected by injected fixes. */
+  public boolean incremental;
 
-  private String buildCommand;
-  private Injector injector;
-  private List<Report> finishedReports;
+  /**
+   * If set, fixes are injected into modified copies of source files and the source tree of the
+   * project is never modified in exploration.
+   */
+  public boolean overlayEnabled;
+
+  /** If set, outputs of builds are cached at this directory across runs. */
+  public Path buildCacheDir;
+  /** Maximum size of the build cache in bytes. */
+  public long buildCacheSize = 1024L * 1024 * 1024;
+  /** If set, results of explored fixes are stored at this path and reused across runs. */
+  public Path resultStorePath;
+
+  /**
+   * If set, only the modules affected by injected fixes are built with the build command at
+   * {@link #moduleBuildCommand}.
+   */
+  public Path moduleMapPath;
+  /** Build command where {@link ModuleBuildEngine#TARGETS} is replaced by module targets. */
+  public String moduleBuildCommand;
+
+  /**
+   * If set, groups of fixes whose effects cannot be attributed to each fix are split and explored
+   * recursively.
+   */
+  public boolean bisect;
+
+  /**
+   * If set, injecting fixes of the next group and analyzing outputs of the previous group overlap
+   * with each build in exploration, requires {@link #overlayEnabled} and {@link
+   * #compilerArgsPath}.
+   */
+  public boolean pipeline;
+
+  /**
+   * Deep analysis stops at the first level where the total effect gained by all chains (errors
+   * removed compared to the previous level) is less than this value, {@code 0} for no limit.
+   */
+  public int deepMinGain;
+  /**
+   * Deep analysis stops at the first level where fewer chains change their effect than this value,
+   * {@code 0} for no limit.
+   */
+  public int deepMinChanged;
+  /** If set, chains whose effect is unchanged across two levels are not extended anymore. */
+  public boolean deepFreeze;
+
+  /** If set, exploration continues from the journal of an interrupted run. */
+  public boolean resume;
+
+  /** Wall time of exploration in seconds, {@code 0} for no limit. */
+  public long timeBudget;
+  /** Maximum number of exploration builds, {@code 0} for no limit. */
+  public int buildBudget;
+  /** Budget of exploration, shared by all iterations of a run. */
+  public Budget budget;
+
+  /** Number of workers building the project concurrently in exploration. */
+  public int workers = 1;
+  /** Root of the project copied for each worker, required if more than one worker is used. */
+  public Path projectRoot;
+
+  /** Worker operating on the original project. */
+  private Worker main;
+  public WorkerPool pool;
+  private BuildCache cache;
+  private ResultStore resultStore;
+  /** Journal of exploration, see {@link Journal}. */
+  public Journal journal;
+  /** Writer of reports of the running exploration, see {@link ReportWriter}. */
+  public ReportWriter reportWriter;
+  private ModuleMap moduleMap;
+  private ReportStore finishedReports;
   private List<Explorer> explorers;
   private DeepExplorer deepExplorer;
+  /** Hashes of metadata files at the time they were loaded. */
+  private final Map<Path, String> metadataHashes = new HashMap<>();
 
   public MethodRegionTracker methodRegionTracker;
   public FieldRegionTracker fieldRegionTracker;
@@ -80,106 +182,447 @@ public class Annotator {
     int requested;
     long time;
     long deep;
+    int cached;
+    long buildTime;
+    long injectionTime;
+    int unexplored;
+    /** Learned costs of builds, kept across iterations. */
+    final CostModel costs = new CostModel();
+
+    void reset() {
+      total = 0;
+      requested = 0;
+      time = 0;
+      deep = 0;
+      cached = 0;
+      buildTime = 0;
+      injectionTime = 0;
+      unexplored = 0;
+    }
+
+    /**
+     * Records a build of a worker.
+     *
+     * @param features Features of the fixes injected in the build, see {@link CostModel}.
+     * @param injectionTime Time spent on injecting and removing fixes since the previous build.
+     * @param buildTime Wall time of the build.
+     */
+    public synchronized void recordBuild(double[] features, long injectionTime, long buildTime) {
+      this.injectionTime += injectionTime;
+      this.buildTime += buildTime;
+      costs.record(features, injectionTime + buildTime);
+    }
+
+    synchronized void countRequested() {
+      requested++;
+    }
 
     @Override
     public String toString() {
-      return "total=" + total + ", requested=" + requested + ", time=" + time + ", deep=" + deep;
+      return "total="
+          + total
+          + ", requested="
+          + requested
+          + ", cached="
+          + cached
+          + ", build="
+          + buildTime
+          + ", injection="
+          + injectionTime
+          + ", time="
+          + time
+          + ", deep="
+          + deep
+          + ", unexplored="
+          + unexplored;
     }
   }
 
-  private List<Fix> init(String buildCommand, boolean useCache) {
+  /** Restores results of fixes explored before the previous run was interrupted. */
+  private void restore(List<Report> restored, List<Fix> fixes) {
+    if (restored.isEmpty()) {
+      return;
+    }
+    System.out.println("Resuming with results of: " + restored.size() + " fixes");
+    Set<Fix> remaining = new HashSet<>(fixes);
+    for (Report report : restored) {
+      if (!remaining.contains(report.fix)) {
+        continue;
+      }
+      if (explorers.stream().noneMatch(explorer -> explorer.restore(report))) {
+        addReport(report);
+      }
+    }
+  }
+
+  /**
+   * Adds reports of fixes whose stored results are still valid to the finished reports.
+   *
+   * @param fixes All fixes suggested in the current state of the project.
+   * @return Fixes which need to be explored.
+   */
+  private List<Fix> reuseStoredResults(List<Fix> fixes) {
+    resultStore.refresh(fixes);
+    Set<Fix> reused = new HashSet<>();
+    for (Fix fix : fixes) {
+      Report report = resultStore.lookup(fix, getDependentClasses(fix));
+      if (report != null) {
+        addReport(report);
+        reused.add(fix);
+      }
+    }
+    if (reused.isEmpty()) {
+      return fixes;
+    }
+    System.out.println("Reusing stored results of: " + reused.size() + " fixes");
+    return Collections.unmodifiableList(
+        fixes.stream().filter(fix -> !reused.contains(fix)).collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns the classes whose source code can change the result of exploring the given fix, which
+   * are also the classes where the fix can change errors: the class of the fix, the classes of the
+   * regions using the annotated element and the classes of overriding and overridden methods.
+   */
+  public Set<String> getDependentClasses(Fix fix) {
+    Set<String> classes = new HashSet<>();
+    classes.add(fix.className);
+    boolean isMethod =
+        fix.location.equals(FixType.METHOD.name) || fix.location.equals(FixType.PARAMETER.name);
+    if (isMethod || fix.location.equals(FixType.FIELD.name)) {
+      getImpactedRegions(fix).forEach(region -> classes.add(region.clazz));
+    }
+    if (isMethod) {
+      // Effects of method and parameter fixes are corrected by their overriding methods.
+      methodInheritanceTree
+          .getSuperMethods(fix.method, fix.className, false)
+          .forEach(node -> classes.add(node.clazz));
+      methodInheritanceTree
+          .getSubMethods(fix.method, fix.className, false)
+          .forEach(node -> classes.add(node.clazz));
+    }
+    classes.remove("null");
+    return classes;
+  }
+
+  /** Creates the workers of the annotator, called once before the first exploration. */
+  private void setup(String buildCommand, Path configPath) {
+    this.budget = new Budget(timeBudget, buildBudget);
+    this.nullAwayConfigPath = configPath;
+    this.dir =
+        Paths.get(
+            XMLUtil.getValueFromTag(configPath, "/serialization/path", String.class)
+                .orElse("/tmp/NullAwayFix"));
+    this.fixPath = this.dir.resolve("fixes.tsv");
+    this.errorPath = this.dir.resolve("errors.tsv");
+    if (moduleMapPath != null) {
+      Preconditions.checkNotNull(
+          moduleBuildCommand, "Module build command is required with a module map.");
+      this.moduleMap = new ModuleMap(moduleMapPath);
+    }
+    Overlay overlay = createOverlay(dir);
+    this.journal = new Journal(dir.resolve("journal.json"));
+    Set<Fix> injected = journal.getInjected();
+    if (!injected.isEmpty()) {
+      // Must be removed before the project is compiled by any engine.
+      System.out.println(
+          "Removing " + injected.size() + " fixes left injected by an interrupted run.");
+      Worker recovery =
+          new Worker(
+              0, dir, nullAwayConfigPath, createInjector(null), null, Collections.emptyMap());
+      recovery.setJournal(journal);
+      recovery.remove(new ArrayList<>(injected));
+    }
+    this.main =
+        new Worker(
+            0, dir, nullAwayConfigPath, createInjector(overlay), overlay, Collections.emptyMap());
+    this.main.setJournal(journal);
+    this.main.setEngine(createEngine(main, buildCommand, compilerArgsPath));
+    this.pool = createWorkerPool(buildCommand);
+    if (resultStorePath != null) {
+      this.resultStore = new ResultStore(resultStorePath, nullableAnnot + "\t" + depth);
+    }
+  }
+
+  private List<Fix> init(Collection<Fix> cached) {
     System.out.println("Initializing Explorers.");
-    this.buildCommand = buildCommand;
-    this.finishedReports = new ArrayList<>();
+    this.finishedReports = new ReportStore();
+    this.reportWriter = new ReportWriter(dir);
     FixSerializationConfig.Builder builder =
         new FixSerializationConfig.Builder()
             .setSuggest(true, true)
             .setAnnotations(nullableAnnot, "UNKNOWN")
             .setOutputDirectory(this.dir.toString());
     buildProject(builder, false);
+    List<Report> restored =
+        journal.start(
+            Utility.hash(errorPath) + Utility.hash(fixPath) + nullableAnnot + depth, resume);
+    // Only the first exploration of a run is resumed.
+    resume = false;
     List<Fix> allFixes = Utility.readAllFixes(fixPath);
-    if (useCache) {
-      Utility.removeCachedFixes(allFixes, dir);
+    if (buildCacheDir != null) {
+      this.cache = new BuildCache(buildCacheDir, buildCacheSize, dir, allFixes);
+    }
+    if (!cached.isEmpty()) {
+      System.out.print(
+          "Cached items size: " + cached.size() + " total fix size: " + allFixes.size());
+      allFixes.removeAll(cached);
+      System.out.println(". Reduced down to: " + allFixes.size());
     }
     allFixes = Collections.unmodifiableList(allFixes);
     log.total = allFixes.size();
-    this.injector =
-        Injector.builder()
-            .setMode(Injector.MODE.BATCH)
-            .keepStyle(lexicalPreservationEnabled)
-            .build();
-    this.methodInheritanceTree =
-        new MethodInheritanceTree(dir.resolve(Serializer.METHOD_INFO_NAME));
-    this.methodRegionTracker = new MethodRegionTracker(dir.resolve(Serializer.CALL_GRAPH_NAME));
-    this.fieldRegionTracker = new FieldRegionTracker(dir.resolve(Serializer.FIELD_GRAPH_NAME));
+    // Metadata is only reloaded if changed since the previous iteration.
+    if (isModified(dir.resolve(Serializer.METHOD_INFO_NAME))) {
+      this.methodInheritanceTree =
+          new MethodInheritanceTree(dir.resolve(Serializer.METHOD_INFO_NAME));
+    }
+    if (isModified(dir.resolve(Serializer.CALL_GRAPH_NAME))) {
+      this.methodRegionTracker = new MethodRegionTracker(dir.resolve(Serializer.CALL_GRAPH_NAME));
+    }
+    if (isModified(dir.resolve(Serializer.FIELD_GRAPH_NAME))) {
+      this.fieldRegionTracker = new FieldRegionTracker(dir.resolve(Serializer.FIELD_GRAPH_NAME));
+    }
+    if (resultStore != null) {
+      allFixes = reuseStoredResults(allFixes);
+    }
     Bank<Error> errorBank = new Bank<>(errorPath, Error::new);
     Bank<FixEntity> fixBank = new Bank<>(fixPath, FixEntity::new);
+    for (Worker worker : pool.getWorkers()) {
+      if (worker != main) {
+        worker.errorBank = errorBank.fork(worker.dir.resolve(errorPath.getFileName()));
+        worker.fixBank = fixBank.fork(worker.dir.resolve(fixPath.getFileName()));
+        worker.setCache(cache);
+      }
+    }
+    main.errorBank = errorBank;
+    main.fixBank = fixBank;
+    main.setCache(cache);
     this.explorers = new ArrayList<>();
     this.deepExplorer = new DeepExplorer(this, errorBank, fixBank);
     if (depth < 0) {
       this.explorers.add(new DummyExplorer(this, null, null));
     } else {
-      this.explorers.add(new ParameterExplorer(this, allFixes, errorBank, fixBank));
-      this.explorers.add(new FieldExplorer(this, allFixes, errorBank, fixBank));
-      this.explorers.add(new MethodExplorer(this, allFixes, errorBank, fixBank));
-      this.explorers.add(new BasicExplorer(this, errorBank, fixBank));
+      ParameterExplorer parameterExplorer =
+          new ParameterExplorer(this, allFixes, errorBank, fixBank);
+      // Field and method fixes share a graph, fixes of both types are grouped together.
+      FixGraph<Node> fixGraph = new FixGraph<>(Node::new);
+      FieldExplorer fieldExplorer = new FieldExplorer(this, allFixes, errorBank, fixBank, fixGraph);
+      MethodExplorer methodExplorer =
+          new MethodExplorer(this, allFixes, errorBank, fixBank, fixGraph);
+      this.explorers.add(parameterExplorer);
+      this.explorers.add(fieldExplorer);
+      this.explorers.add(methodExplorer);
+      List<Fix> remaining =
+          allFixes
+              .stream()
+              .filter(fix -> explorers.stream().noneMatch(explorer -> explorer.isApplicable(fix)))
+              .collect(Collectors.toList());
+      FallbackExplorer fallbackExplorer = new FallbackExplorer(this, remaining, errorBank, fixBank);
+      this.explorers.add(fallbackExplorer);
+      restore(restored, allFixes);
+      parameterExplorer.explore();
+      methodExplorer.explore();
+      fallbackExplorer.explore();
     }
     return allFixes;
   }
 
+  /** Returns true if the content of the given file has changed since the previous call. */
+  private boolean isModified(Path path) {
+    String hash = Utility.hash(path);
+    return !hash.equals(metadataHashes.put(path, hash));
+  }
+
+  private Overlay createOverlay(Path dir) {
+    return overlayEnabled ? new Overlay(dir.resolve("overlay")) : null;
+  }
+
+  private Injector createInjector(Overlay overlay) {
+    return Injector.builder()
+        .setMode(Injector.MODE.BATCH)
+        .keepStyle(lexicalPreservationEnabled)
+        .setOverlay(overlay == null ? null : overlay.dir)
+        .build();
+  }
+
+  private BuildEngine createEngine(Worker worker, String buildCommand, Path argsPath) {
+    if (argsPath == null) {
+      if (moduleMap != null) {
+        return new ModuleBuildEngine(
+            buildCommand, worker.relocate(moduleBuildCommand), moduleMap, this, worker);
+      }
+      return new CommandBuildEngine(buildCommand);
+    }
+    return incremental
+        ? new IncrementalBuildEngine(argsPath, this, worker)
+        : new JavacBuildEngine(argsPath);
+  }
+
+  /**
+   * Creates the pool of workers for exploration. With a single worker, the original project is
+   * used. Otherwise, each worker gets a copy of the project at {@link #projectRoot} and all paths
+   * in the build command (or compiler arguments) are relocated to the copy.
+   */
+  private WorkerPool createWorkerPool(String buildCommand) {
+    if (workers <= 1) {
+      return new WorkerPool(Collections.singletonList(main));
+    }
+    Preconditions.checkNotNull(projectRoot, "Project root is required for multiple workers.");
+    System.out.println("Preparing workspaces for " + workers + " workers.");
+    Path workersDir = dir.resolve("workers");
+    Utility.deleteDirectory(workersDir);
+    Set<Path> excludes = new HashSet<>();
+    excludes.add(dir);
+    excludes.add(projectRoot.resolve(".git"));
+    List<Worker> pool = new ArrayList<>();
+    for (int id = 1; id <= workers; id++) {
+      Path home = workersDir.resolve(String.valueOf(id));
+      Path root = home.resolve("project");
+      Path out = home.resolve("out");
+      Path config = home.resolve("config.xml");
+      Utility.copyDirectory(projectRoot, root, excludes);
+      Map<String, String> relocations = new HashMap<>();
+      relocations.put(projectRoot.toString(), root.toString());
+      relocations.put(dir.toString(), out.toString());
+      relocations.put(nullAwayConfigPath.toString(), config.toString());
+      Overlay overlay = createOverlay(out);
+      Worker worker = new Worker(id, out, config, createInjector(overlay), overlay, relocations);
+      Path argsPath = null;
+      if (compilerArgsPath != null) {
+        argsPath = home.resolve("javac.args");
+        try {
+          Files.write(
+              argsPath,
+              Files.readAllLines(compilerArgsPath)
+                  .stream()
+                  .map(worker::relocate)
+                  .collect(Collectors.toList()));
+        } catch (IOException e) {
+          throw new RuntimeException("Could not relocate compiler arguments for worker: " + id, e);
+        }
+      }
+      worker.setEngine(createEngine(worker, worker.relocate(buildCommand), argsPath));
+      pool.add(worker);
+    }
+    return new WorkerPool(pool);
+  }
+
   public void start(String buildCommand, Path configPath, boolean useCache) {
-    log.time = System.currentTimeMillis();
     System.out.println("Annotator Started.");
-    this.nullAwayConfigPath = configPath;
-    this.dir =
-        Paths.get(
-            XMLUtil.getValueFromTag(configPath, "/serialization/path", String.class)
-                .orElse("/tmp/NullAwayFix"));
-    this.fixPath = this.dir.resolve("fixes.tsv");
-    this.errorPath = this.dir.resolve("errors.tsv");
-    List<Fix> fixes = init(buildCommand, useCache);
+    setup(buildCommand, configPath);
+    explore(useCache ? Utility.readCachedFixes(dir) : Collections.emptyList());
+    journal.close();
+    pool.shutdown();
+  }
+
+  /**
+   * Explores all fixes and applies the effective ones in iterations until no new report is
+   * produced. Workers, metadata and reports are kept in memory across iterations.
+   */
+  public void run(String buildCommand, Path configPath) {
+    System.out.println("Annotator Started.");
+    setup(buildCommand, configPath);
+    Set<JSONObject> reported = new HashSet<>(Utility.readReportsCache(dir));
+    Set<Fix> cached = new HashSet<>();
+    reported.forEach(json -> cacheIfIneffective(json, cached));
+    boolean finished = false;
+    while (!finished) {
+      List<Report> reports = explore(cached);
+      if (reports.isEmpty()) {
+        System.out.println("No changes, shutting down.");
+        break;
+      }
+      System.out.println("Explore task finished, applying effective fixes...");
+      List<Fix> effective = new ArrayList<>();
+      reports
+          .stream()
+          .filter(report -> report.explored && report.effectiveNess < 1)
+          .forEach(
+              report -> {
+                effective.add(report.fix);
+                effective.addAll(report.followups);
+              });
+      pool.getWorkers().forEach(worker -> worker.commit(effective));
+      if (!pool.getWorkers().contains(main)) {
+        main.commit(effective);
+      }
+      List<JSONObject> added = new ArrayList<>();
+      for (Report report : reports) {
+        if (!report.explored) {
+          // Explored in the next run.
+          continue;
+        }
+        JSONObject json = Utility.toCanonicalJson(report);
+        if (reported.add(json)) {
+          added.add(json);
+          cacheIfIneffective(json, cached);
+        }
+      }
+      finished = added.isEmpty();
+      Utility.appendReportsCache(dir, added);
+      if (budget.isExhausted()) {
+        System.out.println("Budget of exploration is exhausted, shutting down.");
+        break;
+      }
+    }
+    journal.close();
+    pool.shutdown();
+  }
+
+  private static void cacheIfIneffective(JSONObject report, Set<Fix> cached) {
+    if (Integer.parseInt(report.get("effect").toString()) > 0) {
+      cached.add(Fix.createFromJson(report));
+    }
+  }
+
+  /**
+   * Explores all fixes suggested in a build of the current state of the project, reports are
+   * written at {@code diagnose_report.json}.
+   *
+   * @param cached Fixes which are already known to be ineffective and are not explored.
+   * @return Reports of explored fixes.
+   */
+  private List<Report> explore(Collection<Fix> cached) {
+    log.reset();
+    log.time = System.currentTimeMillis();
+    List<Fix> fixes = init(cached);
+    if (budget.isLimited()) {
+      // Fixes suggested for more errors are explored first.
+      fixes = new ArrayList<>(fixes);
+      fixes.sort(Comparator.comparingInt((Fix fix) -> fix.referred).reversed());
+    }
     fixes.forEach(
         fix -> {
-          if (finishedReports
-              .stream()
-              .noneMatch(diagnoseReport -> diagnoseReport.fix.equals(fix))) {
+          if (!finishedReports.contains(fix)) {
             analyze(fix);
           }
         });
+    if (resultStore != null) {
+      // Stored before deep analysis, which refines the reports in later runs as well.
+      finishedReports
+          .getReports()
+          .stream()
+          .filter(report -> report.explored)
+          .forEach(report -> resultStore.put(report, getDependentClasses(report.fix)));
+      resultStore.save();
+    }
     log.deep = System.currentTimeMillis();
     this.deepExplorer.start(finishedReports);
     log.deep = System.currentTimeMillis() - log.deep;
     log.time = System.currentTimeMillis() - log.time;
-    Utility.writeReports(dir, finishedReports);
+    log.cached = cache == null ? 0 : cache.getHits();
+    log.unexplored = finishedReports.count(report -> !report.explored);
+    reportWriter.close(finishedReports);
     Utility.writeLog(this);
+    return finishedReports.getReports();
   }
 
   public void remove(List<Fix> fixes) {
-    if (fixes == null || fixes.size() == 0) {
-      return;
-    }
-    List<Fix> toRemove =
-        fixes
-            .stream()
-            .map(
-                fix ->
-                    new Fix(
-                        fix.annotation,
-                        fix.method,
-                        fix.param,
-                        fix.location,
-                        fix.className,
-                        fix.uri,
-                        "false"))
-            .collect(Collectors.toList());
-    apply(toRemove);
+    main.remove(fixes);
   }
 
   public void apply(List<Fix> fixes) {
-    if (fixes == null || fixes.size() == 0) {
-      return;
-    }
-    injector.start(new WorkListBuilder(fixes).getWorkLists(), false);
+    main.apply(fixes);
   }
 
   private void analyze(Fix fix) {
@@ -188,6 +631,10 @@ public class Annotator {
     for (Explorer explorer : explorers) {
       if (explorer.isApplicable(fix)) {
         if (explorer.requiresInjection(fix)) {
+          if (!budget.reserve(predictCost(Collections.singletonList(fix)))) {
+            report = Report.unexplored(fix);
+            break;
+          }
           apply(Collections.singletonList(fix));
           appliedFix = true;
         }
@@ -197,24 +644,61 @@ public class Annotator {
     }
     if (appliedFix) {
       remove(Collections.singletonList(fix));
+      journal.record(Collections.singletonList(report));
     }
     Preconditions.checkNotNull(report);
-    finishedReports.add(report);
+    addReport(report);
+  }
+
+  /** Adds the report to the finished reports, the report is written if it is final. */
+  private void addReport(Report report) {
+    if (finishedReports.add(report)) {
+      reportWriter.write(Collections.singletonList(report));
+    }
   }
 
   public void buildProject(FixSerializationConfig.Builder writer, boolean count) {
     if (count) {
-      log.requested++;
-    }
-    writer.writeAsXML(nullAwayConfigPath.toString());
-    try {
-      Utility.executeCommand(buildCommand);
-    } catch (Exception e) {
-      throw new RuntimeException("Could not run command: " + buildCommand);
+      log.countRequested();
     }
+    main.build(writer);
   }
 
   public void buildProject(FixSerializationConfig.Builder writer) {
     buildProject(writer, true);
   }
+
+  /**
+   * Returns the regions where the element targeted by the given fix is used, these regions need
+   * to be re-checked once the fix is injected.
+   */
+  public Set<Region> getImpactedRegions(Fix fix) {
+    if (fix.location.equals(FixType.FIELD.name)) {
+      return fieldRegionTracker.getRegions(fix);
+    }
+    if (fix.location.equals(FixType.PARAMETER.name)) {
+      // Call sites of the method are impacted by annotating its parameter.
+      fix =
+          new Fix(
+              fix.annotation,
+              fix.method,
+              fix.param,
+              FixType.METHOD.name,
+              fix.className,
+              fix.uri,
+              fix.inject);
+    }
+    return methodRegionTracker.getRegions(fix);
+  }
+
+  /** Predicts the time a worker spends on injecting the given fixes and building the project. */
+  public double predictCost(Collection<Fix> fixes) {
+    return log.costs.predict(CostModel.features(fixes));
+  }
+
+  /** Builds the project of the given worker, outputs are serialized at the worker's directory. */
+  public void buildProject(FixSerializationConfig.Builder writer, Worker worker) {
+    log.countRequested();
+    worker.build(writer);
+  }
 }
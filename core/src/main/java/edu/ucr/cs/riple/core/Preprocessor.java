@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core;
+
+import com.uber.nullaway.fixserialization.FixSerializationConfig;
+import edu.ucr.cs.css.XMLUtil;
+import edu.ucr.cs.riple.core.engine.CommandBuildEngine;
+import edu.ucr.cs.riple.injector.Fix;
+import edu.ucr.cs.riple.injector.Injector;
+import edu.ucr.cs.riple.injector.WorkListBuilder;
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Detects initializer methods for fields which are not initialized at declaration (reported by
+ * NullAway with {@code FIELD_NO_INIT}) and annotates them with the initializer annotation. For each
+ * such field, the method of the same class which initializes the most fields (among methods
+ * initializing the field) is selected.
+ */
+public class Preprocessor {
+
+  public String nullableAnnot;
+  public String nonnullAnnot;
+  public String initializerAnnot;
+  public boolean lexicalPreservationEnabled;
+
+  /** Method of a class with all the fields it initializes, according to {@code field_init.tsv}. */
+  private static class Candidate {
+    final String clazz;
+    final String method;
+    final String uri;
+    final Set<String> fields = new HashSet<>();
+
+    Candidate(String clazz, String method, String uri) {
+      this.clazz = clazz;
+      this.method = method;
+      this.uri = uri;
+    }
+  }
+
+  public void start(String buildCommand, Path configPath) {
+    System.out.println("Started preprocessing task...");
+    Path dir =
+        Paths.get(
+            XMLUtil.getValueFromTag(configPath, "/serialization/path", String.class)
+                .orElse("/tmp/NullAwayFix"));
+    new FixSerializationConfig.Builder()
+        .setSuggest(true, true)
+        .setAnnotations(nullableAnnot, nonnullAnnot)
+        .setFieldInitInfo(true)
+        .setOutputDirectory(dir.toString())
+        .writeAsXML(configPath.toString());
+    new CommandBuildEngine(buildCommand).build();
+    System.out.println("Detecting initializers...");
+    // Fields in each class mapped to methods initializing them.
+    Map<String, List<Candidate>> initializers = new HashMap<>();
+    // Methods in each class.
+    Map<String, Map<String, Candidate>> methods = new HashMap<>();
+    forEachRow(
+        dir.resolve("field_init.tsv"),
+        row -> {
+          String clazz = row.get("class");
+          Candidate candidate =
+              methods
+                  .computeIfAbsent(clazz, k -> new HashMap<>())
+                  .computeIfAbsent(
+                      row.get("method"), method -> new Candidate(clazz, method, row.get("uri")));
+          if (candidate.fields.add(row.get("field"))) {
+            initializers
+                .computeIfAbsent(clazz + "\t" + row.get("field"), k -> new ArrayList<>())
+                .add(candidate);
+          }
+        });
+    System.out.println("Detecting uninitialized class fields...");
+    Set<Fix> fixes = new LinkedHashSet<>();
+    forEachRow(
+        dir.resolve("fixes.tsv"),
+        row -> {
+          if (!row.get("reason").equals("FIELD_NO_INIT")
+              || !row.get("location").equals(FixType.FIELD.name)) {
+            return;
+          }
+          List<Candidate> candidates = initializers.get(row.get("class") + "\t" + row.get("param"));
+          if (candidates == null) {
+            return;
+          }
+          Candidate selected = null;
+          for (Candidate candidate : candidates) {
+            if (selected == null || candidate.fields.size() > selected.fields.size()) {
+              selected = candidate;
+            }
+          }
+          fixes.add(
+              new Fix(
+                  initializerAnnot,
+                  selected.method,
+                  "",
+                  FixType.METHOD.name,
+                  selected.clazz,
+                  selected.uri,
+                  "true"));
+        });
+    System.out.println("Annotating as " + initializerAnnot);
+    writeFixes(dir.resolve("init_methods.json"), fixes);
+    Injector injector =
+        Injector.builder()
+            .setMode(Injector.MODE.BATCH)
+            .keepStyle(lexicalPreservationEnabled)
+            .build();
+    injector.start(new WorkListBuilder(new ArrayList<>(fixes)).getWorkLists(), true);
+  }
+
+  /** Streams rows of a tsv file with a header line, each row is mapped by column names. */
+  private static void forEachRow(Path path, Consumer<Map<String, String>> consumer) {
+    try (BufferedReader reader = Files.newBufferedReader(path, Charset.defaultCharset())) {
+      String line = reader.readLine();
+      if (line == null) {
+        return;
+      }
+      String[] header = line.split("\t");
+      while ((line = reader.readLine()) != null) {
+        String[] values = line.split("\t");
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+          row.put(header[i], values[i]);
+        }
+        consumer.accept(row);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Exception happened in reading: " + path, e);
+    }
+  }
+
+  /** Writes the selected fixes at the given path, in the format of {@code apply} command input. */
+  private static void writeFixes(Path path, Set<Fix> fixes) {
+    JSONArray fixesJson = new JSONArray();
+    for (Fix fix : fixes) {
+      JSONObject fixJson = fix.getJson();
+      fixJson.put("reason", "Initializer");
+      fixesJson.add(fixJson);
+    }
+    JSONObject result = new JSONObject();
+    result.put("fixes", fixesJson);
+    try (FileWriter writer = new FileWriter(path.toFile())) {
+      writer.write(result.toJSONString().replace("\\/", "/"));
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write initializer fixes at: " + path, e);
+    }
+  }
+}
@@ -35,20 +35,37 @@ public class Report {
   public Set<Fix> followups;
   public Set<Fix> triggered;
   public boolean finished;
+  /** If <code>false</code>, the fix was not explored as the budget of exploration ran out. */
+  public boolean explored;
 
   public Report(Fix fix, int effectiveNess) {
     this.effectiveNess = effectiveNess;
     this.fix = fix;
     this.followups = new HashSet<>();
     this.finished = false;
+    this.explored = true;
   }
 
   public static Report empty(Fix fix) {
     return new Report(fix, 0);
   }
 
+  public static Report unexplored(Fix fix) {
+    Report report = new Report(fix, 0);
+    report.explored = false;
+    return report;
+  }
+
   @Override
   public String toString() {
-    return "effectiveNess=" + effectiveNess + ", fix=" + fix + ", finished=" + finished + '}';
+    return "effectiveNess="
+        + effectiveNess
+        + ", fix="
+        + fix
+        + ", finished="
+        + finished
+        + ", explored="
+        + explored
+        + '}';
   }
 }
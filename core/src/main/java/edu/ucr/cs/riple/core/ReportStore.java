@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core;
+
+import edu.ucr.cs.riple.injector.Fix;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Reports of an exploration indexed by their fix. Reports are kept in the order they are added
+ * and updates are thread-safe.
+ */
+public class ReportStore {
+
+  private final Map<Fix, Report> reports;
+
+  public ReportStore() {
+    this.reports = new LinkedHashMap<>();
+  }
+
+  /**
+   * Adds the report of a fix.
+   *
+   * @return {@code false} if a report of the fix already exists, the existing report is kept.
+   */
+  public synchronized boolean add(Report report) {
+    return reports.putIfAbsent(report.fix, report) == null;
+  }
+
+  public synchronized boolean contains(Fix fix) {
+    return reports.containsKey(fix);
+  }
+
+  /** Returns the report of the given fix, {@code null} if the fix has no report. */
+  public synchronized Report get(Fix fix) {
+    return reports.get(fix);
+  }
+
+  /** Returns all reports in the order they are added. */
+  public synchronized List<Report> getReports() {
+    return new ArrayList<>(reports.values());
+  }
+
+  /** Returns the number of reports satisfying the given predicate. */
+  public synchronized int count(Predicate<Report> predicate) {
+    int ans = 0;
+    for (Report report : reports.values()) {
+      if (predicate.test(report)) {
+        ans++;
+      }
+    }
+    return ans;
+  }
+
+  public synchronized int size() {
+    return reports.size();
+  }
+}
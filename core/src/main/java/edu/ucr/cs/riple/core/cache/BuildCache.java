@@ -0,0 +1,292 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.cache;
+
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of build outputs ({@code errors.tsv} and {@code fixes.tsv}) on local disk. An
+ * entry is keyed by a hash of the injected fixes, the content of their source files, the NullAway
+ * config, the outputs of the initial build of the project and the content of all source files of
+ * the project when the cache is created (fixes are injected into any file, so any region affected
+ * by a fix can be located in the rest of the project). Entries are evicted in least recently used
+ * order once the total size exceeds the given limit.
+ */
+public class BuildCache {
+
+  /** Output files of a build stored in each entry. */
+  private static final String[] OUTPUTS = {"errors.tsv", "fixes.tsv"};
+
+  private final Path dir;
+  private final long maxSize;
+  /** Hash of the outputs of the initial build and the source files of the project. */
+  private final String baseline;
+  /** Entries mapped to their size in bytes, in least recently used order. */
+  private final LinkedHashMap<String, Long> entries;
+
+  private long size;
+  private int hits;
+
+  /**
+   * Creates the cache at the given directory, existing entries are reused.
+   *
+   * @param dir Directory of the cache.
+   * @param maxSize Maximum total size of entries in bytes.
+   * @param baseline Directory containing the outputs of the initial build.
+   * @param fixes Fixes reported by the initial build, source files under their source roots are
+   *     hashed as the state of the project.
+   */
+  public BuildCache(Path dir, long maxSize, Path baseline, Collection<Fix> fixes) {
+    this.dir = dir;
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    MessageDigest digest = newDigest();
+    for (String output : OUTPUTS) {
+      update(digest, baseline.resolve(output));
+    }
+    TreeSet<Path> roots = new TreeSet<>();
+    for (Fix fix : fixes) {
+      Path root = ResultStore.rootOf(fix);
+      if (root != null) {
+        roots.add(root);
+      }
+    }
+    try {
+      for (Path root : roots) {
+        List<Path> sources;
+        try (Stream<Path> paths = Files.walk(root)) {
+          sources =
+              paths
+                  .filter(path -> path.toString().endsWith(".java"))
+                  .sorted()
+                  .collect(Collectors.toList());
+        }
+        for (Path source : sources) {
+          digest.update((root.relativize(source) + "\n").getBytes(StandardCharsets.UTF_8));
+          update(digest, source);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read source files of the project", e);
+    }
+    this.baseline = toHex(digest.digest());
+    try {
+      Files.createDirectories(dir);
+      List<Path> existing;
+      try (Stream<Path> paths = Files.list(dir)) {
+        existing = paths.filter(Files::isDirectory).collect(Collectors.toList());
+      }
+      existing.sort(Comparator.comparing(BuildCache::lastModified));
+      for (Path entry : existing) {
+        if (entry.getFileName().toString().endsWith(".tmp")) {
+          // Left from an interrupted store.
+          Utility.deleteDirectory(entry);
+          continue;
+        }
+        long entrySize = 0;
+        for (String output : OUTPUTS) {
+          entrySize += Files.size(entry.resolve(output));
+        }
+        entries.put(entry.getFileName().toString(), entrySize);
+        size += entrySize;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load build cache at: " + dir, e);
+    }
+  }
+
+  /**
+   * Computes the key of a build.
+   *
+   * @param fixes Injected fixes.
+   * @param files Source files containing the injected fixes, only their content is hashed.
+   * @param config Content of the NullAway config, independent of the worker running the build.
+   * @return Key of the build.
+   */
+  public String key(Collection<Fix> fixes, Collection<Path> files, String config) {
+    MessageDigest digest = newDigest();
+    digest.update(baseline.getBytes(StandardCharsets.UTF_8));
+    digest.update(config.getBytes(StandardCharsets.UTF_8));
+    TreeSet<String> sortedFixes = new TreeSet<>();
+    fixes.forEach(
+        fix ->
+            sortedFixes.add(
+                String.join(
+                    "\t",
+                    fix.annotation,
+                    fix.method,
+                    fix.param,
+                    fix.location,
+                    fix.className,
+                    fix.uri)));
+    sortedFixes.forEach(fix -> digest.update((fix + "\n").getBytes(StandardCharsets.UTF_8)));
+    for (Path file : new TreeSet<>(files)) {
+      update(digest, file);
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Copies the outputs stored for the given key to the given directory.
+   *
+   * @param key Key of the build.
+   * @param output Directory where the outputs are copied.
+   * @param transformer Applied on each line of the stored outputs.
+   * @return {@code true} if the entry exists.
+   */
+  public synchronized boolean load(String key, Path output, UnaryOperator<String> transformer) {
+    if (!entries.containsKey(key)) {
+      return false;
+    }
+    Path entry = dir.resolve(key);
+    try {
+      for (String name : OUTPUTS) {
+        List<String> lines =
+            Files.readAllLines(entry.resolve(name))
+                .stream()
+                .map(transformer)
+                .collect(Collectors.toList());
+        Files.write(output.resolve(name), lines);
+      }
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      throw new RuntimeException("Could not load build cache entry at: " + entry, e);
+    }
+    hits++;
+    return true;
+  }
+
+  /**
+   * Stores the outputs at the given directory for the given key.
+   *
+   * @param key Key of the build.
+   * @param output Directory containing the outputs of the build.
+   * @param transformer Applied on each line of the outputs before storing.
+   */
+  public synchronized void store(String key, Path output, UnaryOperator<String> transformer) {
+    if (entries.containsKey(key)) {
+      return;
+    }
+    Path entry = dir.resolve(key);
+    Path tmp = dir.resolve(key + ".tmp");
+    long entrySize = 0;
+    try {
+      Files.createDirectories(tmp);
+      for (String name : OUTPUTS) {
+        List<String> lines =
+            Files.readAllLines(output.resolve(name))
+                .stream()
+                .map(transformer)
+                .collect(Collectors.toList());
+        Files.write(tmp.resolve(name), lines);
+        entrySize += Files.size(tmp.resolve(name));
+      }
+      // Entry becomes visible once completely written.
+      Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not store build cache entry at: " + entry, e);
+    }
+    entries.put(key, entrySize);
+    size += entrySize;
+    evict();
+  }
+
+  /** Returns number of builds served from this cache. */
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      Path entry = dir.resolve(eldest.getKey());
+      try {
+        for (String name : OUTPUTS) {
+          Files.deleteIfExists(entry.resolve(name));
+        }
+        Files.deleteIfExists(entry);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not evict build cache entry at: " + entry, e);
+      }
+      size -= eldest.getValue();
+      iterator.remove();
+    }
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read last modified time of: " + path, e);
+    }
+  }
+
+  private static void update(MessageDigest digest, Path file) {
+    try {
+      if (Files.exists(file)) {
+        digest.update(Files.readAllBytes(file));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read file at: " + file, e);
+    }
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 is not supported", e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder ans = new StringBuilder();
+    for (byte b : bytes) {
+      ans.append(String.format("%02x", b));
+    }
+    return ans.toString();
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.cache;
+
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Write-ahead journal of exploration. Every record is a json object on its own line and is
+ * synced to disk before the journaled action takes effect:
+ *
+ * <ul>
+ *   <li>{@code header}: hash of the outputs of the initial build, results are only valid for the
+ *       same state of the project.
+ *   <li>{@code result}: result of an explored fix (effect, finished flag and triggered fixes).
+ *   <li>{@code inject}/{@code remove}: fixes injected into and removed from the source files of
+ *       the project, fixes left injected by an interrupted run are removed on the next run.
+ * </ul>
+ *
+ * A partially written last line of an interrupted run is ignored.
+ */
+@SuppressWarnings("unchecked")
+public class Journal {
+
+  private final Path path;
+  private final List<Report> results;
+  /** Fixes injected into the source files and not removed yet. */
+  private final Set<Fix> injected;
+
+  private String baseline;
+  private FileOutputStream out;
+
+  /** Creates the journal at the given path, records of a previous run are loaded. */
+  public Journal(Path path) {
+    this.path = path;
+    this.results = new ArrayList<>();
+    this.injected = new LinkedHashSet<>();
+    if (!Files.exists(path)) {
+      return;
+    }
+    JSONParser parser = new JSONParser();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        JSONObject record;
+        try {
+          record = (JSONObject) parser.parse(line);
+        } catch (ParseException e) {
+          // Last record of an interrupted run.
+          break;
+        }
+        switch (record.get("type").toString()) {
+          case "header":
+            baseline = record.get("baseline").toString();
+            break;
+          case "result":
+            results.add(toReport(record));
+            break;
+          case "inject":
+            injected.addAll(toFixes((JSONArray) record.get("fixes")));
+            break;
+          case "remove":
+            injected.removeAll(toFixes((JSONArray) record.get("fixes")));
+            break;
+          default:
+            throw new RuntimeException("Unknown record in journal: " + line);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read journal at: " + path, e);
+    }
+  }
+
+  /** Returns fixes which were left injected in the source files by an interrupted run. */
+  public Set<Fix> getInjected() {
+    return Collections.unmodifiableSet(injected);
+  }
+
+  /**
+   * Starts a new exploration, the journal is rewritten with the given baseline.
+   *
+   * @param baseline Hash of the outputs of the initial build.
+   * @param resume If {@code true} and the baseline is unchanged, results of the previous run are
+   *     kept.
+   * @return Results kept from the previous run.
+   */
+  public synchronized List<Report> start(String baseline, boolean resume) {
+    List<Report> kept =
+        resume && baseline.equals(this.baseline)
+            ? new ArrayList<>(results)
+            : Collections.emptyList();
+    close();
+    this.baseline = baseline;
+    this.results.clear();
+    this.injected.clear();
+    try {
+      out = new FileOutputStream(path.toFile(), false);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create journal at: " + path, e);
+    }
+    JSONObject header = new JSONObject();
+    header.put("type", "header");
+    header.put("baseline", baseline);
+    write(header);
+    // Kept results are written again, the journal stays complete if interrupted again.
+    record(kept);
+    return kept;
+  }
+
+  /** Records results of explored fixes. */
+  public synchronized void record(Collection<Report> reports) {
+    for (Report report : reports) {
+      JSONObject record = new JSONObject();
+      record.put("type", "result");
+      record.put("fix", report.fix.getJson());
+      record.put("effect", report.effectiveNess);
+      record.put("finished", report.finished);
+      if (report.triggered != null) {
+        record.put("triggered", toJson(report.triggered));
+      }
+      results.add(report);
+      write(record);
+    }
+  }
+
+  /** Records fixes before they are injected into the source files. */
+  public synchronized void recordInjected(Collection<Fix> fixes) {
+    injected.addAll(fixes);
+    write(createRecord("inject", fixes));
+  }
+
+  /** Records fixes once they are removed from the source files. */
+  public synchronized void recordRemoved(Collection<Fix> fixes) {
+    injected.removeAll(fixes);
+    write(createRecord("remove", fixes));
+  }
+
+  public synchronized void close() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not close journal at: " + path, e);
+    }
+    out = null;
+  }
+
+  private void write(JSONObject record) {
+    if (out == null) {
+      // Records before the first exploration starts are only about the source files.
+      try {
+        out = new FileOutputStream(path.toFile(), true);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not open journal at: " + path, e);
+      }
+    }
+    try {
+      out.write((record.toJSONString() + "\n").getBytes(StandardCharsets.UTF_8));
+      out.getFD().sync();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write journal at: " + path, e);
+    }
+  }
+
+  private static JSONObject createRecord(String type, Collection<Fix> fixes) {
+    JSONObject record = new JSONObject();
+    record.put("type", type);
+    record.put("fixes", toJson(fixes));
+    return record;
+  }
+
+  private static JSONArray toJson(Collection<Fix> fixes) {
+    JSONArray ans = new JSONArray();
+    fixes.forEach(fix -> ans.add(fix.getJson()));
+    return ans;
+  }
+
+  private static List<Fix> toFixes(JSONArray array) {
+    List<Fix> ans = new ArrayList<>();
+    for (Object o : array) {
+      ans.add(Utility.fixFromJson((JSONObject) o));
+    }
+    return ans;
+  }
+
+  private static Report toReport(JSONObject record) {
+    Report report =
+        new Report(
+            Utility.fixFromJson((JSONObject) record.get("fix")),
+            Integer.parseInt(record.get("effect").toString()));
+    report.finished = Boolean.parseBoolean(record.get("finished").toString());
+    if (record.containsKey("triggered")) {
+      report.triggered = new LinkedHashSet<>(toFixes((JSONArray) record.get("triggered")));
+    }
+    return report;
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.cache;
+
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Persistent store of exploration results across runs. The result of a fix (effect, triggered
+ * fixes and finished flag) is stored with a fingerprint of the source files of all classes which
+ * can change the result: the class of the fix and the classes of its impacted regions. A stored
+ * result is reused without a build as long as the fingerprint is unchanged.
+ *
+ * <p>Source files of classes are located under source roots derived from the uris of fixes. If
+ * the source file of any class cannot be located, results of the fix are neither stored nor
+ * reused.
+ */
+public class ResultStore {
+
+  private final Path path;
+  /** Settings of exploration which results depend on, part of every fingerprint. */
+  private final String settings;
+  /** Hash of fix identities mapped to their stored entry. */
+  private final Map<String, Entry> entries;
+  /** Roots of source files, where directories of packages start. */
+  private final Set<Path> roots;
+  /** Hashes of source files, computed once per state of the project. */
+  private final Map<String, String> classHashes;
+
+  private boolean modified;
+
+  private static class Entry {
+    final String fingerprint;
+    final JSONObject result;
+
+    Entry(String fingerprint, JSONObject result) {
+      this.fingerprint = fingerprint;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Creates the store at the given path, existing entries are loaded.
+   *
+   * @param path Path to the file of the store.
+   * @param settings Settings of exploration which results depend on, all stored results are
+   *     invalidated if changed.
+   */
+  public ResultStore(Path path, String settings) {
+    this.path = path;
+    this.settings = settings;
+    this.entries = new HashMap<>();
+    this.roots = new HashSet<>();
+    this.classHashes = new HashMap<>();
+    this.modified = false;
+    if (!Files.exists(path)) {
+      return;
+    }
+    JSONParser parser = new JSONParser();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] values = line.split("\t", 3);
+        if (values.length == 3) {
+          entries.put(values[0], new Entry(values[1], (JSONObject) parser.parse(values[2])));
+        }
+      }
+    } catch (IOException | ParseException e) {
+      throw new RuntimeException("Could not load result store at: " + path, e);
+    }
+  }
+
+  /**
+   * Must be called once the source code of the project is changed, hashes of source files are
+   * recomputed and source roots are derived from the given fixes.
+   */
+  public void refresh(Collection<Fix> fixes) {
+    classHashes.clear();
+    for (Fix fix : fixes) {
+      Path root = rootOf(fix);
+      if (root != null) {
+        roots.add(root);
+      }
+    }
+  }
+
+  /** Returns the source root of the file of the given fix, {@code null} if not derivable. */
+  static Path rootOf(Fix fix) {
+    Path file = toPath(fix.uri);
+    String[] names = topLevel(fix.className).split("\\.");
+    Path root = file.getParent();
+    // Package directories are stripped from the directory of the file.
+    for (int i = names.length - 2; i >= 0 && root != null; i--) {
+      root = root.getFileName().toString().equals(names[i]) ? root.getParent() : null;
+    }
+    return root;
+  }
+
+  /**
+   * Returns the stored result of the given fix if the fingerprint of the given classes is
+   * unchanged, otherwise {@code null}.
+   */
+  public Report lookup(Fix fix, Set<String> classes) {
+    Entry entry = entries.get(identity(fix));
+    if (entry == null) {
+      return null;
+    }
+    String fingerprint = fingerprint(classes);
+    if (fingerprint == null || !fingerprint.equals(entry.fingerprint)) {
+      return null;
+    }
+    JSONObject json = entry.result;
+    Report report = new Report(fix, Integer.parseInt(json.get("effect").toString()));
+    report.finished = Boolean.parseBoolean(json.get("finished").toString());
+    if (json.containsKey("triggered")) {
+      report.triggered = new HashSet<>();
+      for (Object o : (JSONArray) json.get("triggered")) {
+        report.triggered.add(Utility.fixFromJson((JSONObject) o));
+      }
+    }
+    return report;
+  }
+
+  /** Stores the result of the given report with the fingerprint of the given classes. */
+  @SuppressWarnings("unchecked")
+  public void put(Report report, Set<String> classes) {
+    String fingerprint = fingerprint(classes);
+    if (fingerprint == null) {
+      return;
+    }
+    JSONObject json = new JSONObject();
+    json.put("effect", report.effectiveNess);
+    json.put("finished", report.finished);
+    if (report.triggered != null) {
+      JSONArray triggered = new JSONArray();
+      report.triggered.forEach(fix -> triggered.add(fix.getJson()));
+      json.put("triggered", triggered);
+    }
+    entries.put(identity(report.fix), new Entry(fingerprint, json));
+    modified = true;
+  }
+
+  /** Writes the store to disk if changed, the file is replaced atomically. */
+  public void save() {
+    if (!modified) {
+      return;
+    }
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          writer.write(
+              entry.getKey()
+                  + "\t"
+                  + entry.getValue().fingerprint
+                  + "\t"
+                  + entry.getValue().result.toJSONString());
+          writer.newLine();
+        }
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write result store at: " + path, e);
+    }
+    modified = false;
+  }
+
+  private static String identity(Fix fix) {
+    MessageDigest digest = BuildCache.newDigest();
+    // The injector strips the scheme of uris in place, stored and queried fixes may differ in it.
+    String uri = toPath(fix.uri).toString();
+    digest.update(
+        String.join("\t", fix.annotation, fix.method, fix.param, fix.location, fix.className, uri)
+            .getBytes(StandardCharsets.UTF_8));
+    return BuildCache.toHex(digest.digest());
+  }
+
+  /** Returns fingerprint of source files of the given classes, {@code null} if not located. */
+  private String fingerprint(Set<String> classes) {
+    TreeMap<String, String> hashes = new TreeMap<>();
+    for (String clazz : classes) {
+      String hash = classHashes.computeIfAbsent(topLevel(clazz), this::hashSource);
+      if (hash.isEmpty()) {
+        return null;
+      }
+      hashes.put(clazz, hash);
+    }
+    MessageDigest digest = BuildCache.newDigest();
+    digest.update(settings.getBytes(StandardCharsets.UTF_8));
+    hashes.forEach(
+        (clazz, hash) ->
+            digest.update((clazz + "\t" + hash + "\n").getBytes(StandardCharsets.UTF_8)));
+    return BuildCache.toHex(digest.digest());
+  }
+
+  /** Returns hash of the source file of the given top level class, empty if not located. */
+  private String hashSource(String clazz) {
+    String name = clazz;
+    while (true) {
+      String file = name.replace('.', '/') + ".java";
+      for (Path root : roots) {
+        Path candidate = root.resolve(file);
+        if (Files.exists(candidate)) {
+          return Utility.hash(candidate);
+        }
+      }
+      // Might be a nested class serialized with dots.
+      int index = name.lastIndexOf('.');
+      if (index < 0) {
+        return "";
+      }
+      name = name.substring(0, index);
+    }
+  }
+
+  private static String topLevel(String clazz) {
+    String name = clazz;
+    if (name.startsWith("<anonymous ") && name.endsWith(">")) {
+      name = name.substring("<anonymous ".length(), name.length() - 1);
+    }
+    int index = name.indexOf('$');
+    return index > 0 ? name.substring(0, index) : name;
+  }
+
+  private static Path toPath(String uri) {
+    if (uri.startsWith("file:")) {
+      uri = uri.substring("file:".length());
+    }
+    return Paths.get(uri).toAbsolutePath();
+  }
+}
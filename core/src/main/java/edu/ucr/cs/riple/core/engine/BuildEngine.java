@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.engine;
+
+import edu.ucr.cs.riple.core.workers.Overlay;
+import java.util.function.Predicate;
+
+/**
+ * Runs NullAway and CSS over the target project. Implementations are expected to produce the
+ * serialized outputs (e.g. {@code errors.tsv} and {@code fixes.tsv}) at the output directory
+ * given in the NullAway config written right before each call to {@link #build()}.
+ */
+public interface BuildEngine {
+
+  /** Builds the target project with the latest written NullAway and CSS configurations. */
+  void build();
+
+  /**
+   * Sets the overlay holding modified copies of source files, builds must see these copies in
+   * place of the original files.
+   *
+   * @param overlay Overlay of the workspace, {@code null} if fixes are injected in place.
+   */
+  void setOverlay(Overlay overlay);
+
+  /** Called when the source code of the project has changed outside of exploration. */
+  default void reset() {}
+
+  /**
+   * Returns a predicate matching the classes which were checked in the latest build. Outputs for
+   * all other classes are not serialized and are expected to be unchanged since the first build.
+   *
+   * @return Predicate on fully qualified class names, {@code null} if the whole project was
+   *     checked.
+   */
+  default Predicate<String> getCheckedClasses() {
+    return null;
+  }
+}
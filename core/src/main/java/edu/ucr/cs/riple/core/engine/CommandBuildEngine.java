@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.engine;
+
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.core.workers.Overlay;
+
+/** Builds the target project by running the user given build command in a new shell. */
+public class CommandBuildEngine implements BuildEngine {
+
+  private final String command;
+  private Overlay overlay;
+
+  public CommandBuildEngine(String command) {
+    this.command = command;
+  }
+
+  @Override
+  public void build() {
+    execute(command);
+  }
+
+  /** Runs the given build command, the overlay is materialized while the command runs. */
+  protected void execute(String command) {
+    if (overlay != null) {
+      // The build tool only sees the original tree.
+      overlay.materialize();
+    }
+    try {
+      Utility.executeCommand(command);
+    } catch (Exception e) {
+      throw new RuntimeException("Could not run command: " + command);
+    } finally {
+      if (overlay != null) {
+        overlay.restore();
+      }
+    }
+  }
+
+  @Override
+  public void setOverlay(Overlay overlay) {
+    this.overlay = overlay;
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.engine;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.workers.Worker;
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.tools.JavaFileObject;
+
+/**
+ * In process build engine which only re-checks the compilation units affected by the injected
+ * fixes: files containing the fixes, files containing the regions (from {@link
+ * edu.ucr.cs.riple.core.metadata.trackers.MethodRegionTracker} and {@link
+ * edu.ucr.cs.riple.core.metadata.trackers.FieldRegionTracker}) where the fixed elements are used
+ * and files containing the overriding and overridden methods of fixed methods (from {@link
+ * edu.ucr.cs.riple.core.metadata.method.MethodInheritanceTree}).
+ * All other classes are resolved from a copy of the project compiled once without any checker.
+ *
+ * <p>Whenever the affected units cannot be computed precisely (e.g. no fix is injected or a class
+ * cannot be mapped to its source file), the whole project is checked.
+ */
+public class IncrementalBuildEngine extends JavacBuildEngine {
+
+  private final Annotator annotator;
+  private final Worker worker;
+  /** Directory where the project compiled without any checker is stored. */
+  private final Path classesDir;
+  /** Directory for class files of partial builds, kept out of the class path. */
+  private final Path scratchDir;
+  /** Top level classes of the project mapped to their source file, learned in baseline build. */
+  private final Map<String, File> classFiles;
+  /** Top level classes checked in the latest build, {@code null} if all classes were checked. */
+  private Set<String> checked;
+  /** {@code true} if the project has been compiled without checkers at {@link #classesDir}. */
+  private boolean baselineCompiled;
+
+  public IncrementalBuildEngine(Path argsPath, Annotator annotator, Worker worker) {
+    super(argsPath);
+    this.annotator = annotator;
+    this.worker = worker;
+    this.classesDir = worker.dir.resolve("incremental").resolve("classes");
+    this.scratchDir = worker.dir.resolve("incremental").resolve("out");
+    this.classFiles = new HashMap<>();
+    try {
+      Files.createDirectories(classesDir);
+      Files.createDirectories(scratchDir);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create directories for incremental builds", e);
+    }
+    // Compiled right away, as later the source tree of the worker may contain injected fixes.
+    this.baselineCompiled = compileBaseline();
+  }
+
+  @Override
+  public void build() {
+    Set<File> units = baselineCompiled ? findAffectedUnits(worker.getInjectedFixes()) : null;
+    if (units == null) {
+      checked = null;
+      super.build();
+      return;
+    }
+    Set<String> checkedClasses = new HashSet<>();
+    boolean compiled =
+        compile(
+            resolve(units),
+            rewriteOptions(scratchDir, true),
+            new EnterListener((clazz, file) -> checkedClasses.add(clazz)));
+    if (!compiled) {
+      throw new RuntimeException("Could not compile the affected units of the target project");
+    }
+    checked = checkedClasses;
+  }
+
+  @Override
+  public void reset() {
+    classFiles.clear();
+    baselineCompiled = compileBaseline();
+  }
+
+  @Override
+  public Predicate<String> getCheckedClasses() {
+    if (checked == null) {
+      return null;
+    }
+    final Set<String> classes = checked;
+    return clazz -> findTopLevelClass(classes, clazz) != null;
+  }
+
+  /**
+   * Computes the compilation units which needs to be re-checked for the given injected fixes.
+   *
+   * @return Set of source files or {@code null} if the whole project needs to be checked.
+   */
+  private Set<File> findAffectedUnits(Set<Fix> fixes) {
+    if (fixes.isEmpty() || classFiles.isEmpty()) {
+      return null;
+    }
+    Set<File> units = new HashSet<>();
+    for (Fix fix : fixes) {
+      // Overriding and overridden methods are included, as a fix can cause override errors there.
+      for (String clazz : annotator.getDependentClasses(fix)) {
+        String topLevel = findTopLevelClass(classFiles.keySet(), clazz);
+        if (topLevel == null) {
+          return null;
+        }
+        units.add(classFiles.get(topLevel));
+      }
+    }
+    return units;
+  }
+
+  /**
+   * Compiles the original project once without any checker to resolve classes which are not
+   * re-checked and learns the source file of each top level class.
+   */
+  private boolean compileBaseline() {
+    boolean compiled =
+        compile(
+            sources,
+            rewriteOptions(classesDir, false),
+            new EnterListener((clazz, file) -> classFiles.put(clazz, new File(file.toUri()))));
+    if (!compiled) {
+      System.out.println(
+          "Could not compile the project without checkers, incremental builds are disabled.");
+    }
+    return compiled;
+  }
+
+  /**
+   * Rewrites the user given options to write class files at the given directory.
+   *
+   * @param output Output directory for class files.
+   * @param partial If {@code true}, options are prepared for partial builds where checkers are
+   *     active and all classes outside the compilation units are resolved from {@link #classesDir}.
+   *     Otherwise, options are prepared to compile the project without any checker.
+   * @return Rewritten options.
+   */
+  private List<String> rewriteOptions(Path output, boolean partial) {
+    List<String> ans = new ArrayList<>();
+    String classpath = null;
+    for (int i = 0; i < options.size(); i++) {
+      String option = options.get(i);
+      switch (option) {
+        case "-d":
+        case "-sourcepath":
+        case "--source-path":
+          i++;
+          continue;
+        case "-cp":
+        case "-classpath":
+        case "--class-path":
+          classpath = options.get(++i);
+          continue;
+        default:
+          if (!partial && (option.startsWith("-Xplugin:") || option.startsWith("-Xep"))) {
+            continue;
+          }
+          ans.add(option);
+      }
+    }
+    if (partial) {
+      classpath =
+          classpath == null ? classesDir.toString() : classesDir + File.pathSeparator + classpath;
+    }
+    if (classpath != null) {
+      ans.add("-classpath");
+      ans.add(classpath);
+    }
+    ans.add("-d");
+    ans.add(output.toString());
+    return ans;
+  }
+
+  /**
+   * Finds the top level class enclosing the given class within the given set of top level classes.
+   *
+   * @param classes Fully qualified names of top level classes.
+   * @param clazz Fully qualified name of the class, can be nested, local or anonymous.
+   * @return Name of the top level class, {@code null} if not found.
+   */
+  private static String findTopLevelClass(Set<String> classes, String clazz) {
+    String name = clazz;
+    if (name.startsWith("<anonymous ") && name.endsWith(">")) {
+      name = name.substring("<anonymous ".length(), name.length() - 1);
+    }
+    int index = name.indexOf('$');
+    if (index > 0) {
+      name = name.substring(0, index);
+    }
+    while (!classes.contains(name)) {
+      index = name.lastIndexOf('.');
+      if (index < 0) {
+        return null;
+      }
+      name = name.substring(0, index);
+    }
+    return name;
+  }
+
+  /** Visitor of top level classes declared in each entered compilation unit. */
+  private interface ClassVisitor {
+    void visit(String clazz, JavaFileObject file);
+  }
+
+  /** Reports all top level classes of compilation units once they are entered by javac. */
+  private static class EnterListener implements TaskListener {
+
+    private final ClassVisitor visitor;
+
+    EnterListener(ClassVisitor visitor) {
+      this.visitor = visitor;
+    }
+
+    @Override
+    public void started(TaskEvent e) {}
+
+    @Override
+    public void finished(TaskEvent e) {
+      if (e.getKind() != TaskEvent.Kind.ENTER || e.getCompilationUnit() == null) {
+        return;
+      }
+      CompilationUnitTree unit = e.getCompilationUnit();
+      String pkg = unit.getPackageName() == null ? "" : unit.getPackageName() + ".";
+      for (Tree tree : unit.getTypeDecls()) {
+        if (tree instanceof ClassTree) {
+          visitor.visit(pkg + ((ClassTree) tree).getSimpleName(), unit.getSourceFile());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.engine;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskListener;
+import edu.ucr.cs.riple.core.workers.Overlay;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Builds the target project inside the running JVM through {@link JavaCompiler}. The compiler and
+ * its file manager (with its opened archives of the class path) are created once and reused across
+ * builds, therefore no round pays for starting a new JVM and the build tool. Javac creates a new
+ * class loader for the processor path of each task, hence Error Prone, NullAway and CSS are loaded
+ * again in every build.
+ *
+ * <p>The arguments are read from a file with one javac argument per line (empty lines and lines
+ * starting with {@code #} are ignored). Arguments ending with {@code .java} are treated as the
+ * compilation units, all other arguments are passed to javac as options and must activate NullAway
+ * and CSS through Error Prone (e.g. {@code -Xplugin:ErrorProne ...} with a {@code -processorpath}
+ * containing Error Prone, NullAway and CSS).
+ */
+public class JavacBuildEngine implements BuildEngine {
+
+  /** Code of diagnostics reported by Error Prone checkers. */
+  private static final String ERROR_PRONE_CODE = "compiler.err.error.prone";
+
+  /** Javac output is not needed, NullAway serializes all reported errors. */
+  private static final Writer DISCARD =
+      new Writer() {
+        @Override
+        public void write(char[] buffer, int off, int len) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+      };
+
+  private final JavaCompiler compiler;
+  private final StandardJavaFileManager fileManager;
+  protected final List<String> options;
+  protected final List<File> sources;
+  protected Overlay overlay;
+
+  public JavacBuildEngine(Path argsPath) {
+    this.compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException(
+          "No system java compiler found, the annotator must be executed with a JDK.");
+    }
+    this.fileManager = compiler.getStandardFileManager(null, null, null);
+    this.options = new ArrayList<>();
+    this.sources = new ArrayList<>();
+    readArguments(argsPath);
+  }
+
+  private void readArguments(Path argsPath) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(argsPath);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read compiler arguments at: " + argsPath, e);
+    }
+    for (String line : lines) {
+      String arg = line.trim();
+      if (arg.isEmpty() || arg.startsWith("#")) {
+        continue;
+      }
+      if (arg.endsWith(".java")) {
+        sources.add(new File(arg));
+      } else {
+        options.add(arg);
+      }
+    }
+    if (sources.isEmpty()) {
+      throw new IllegalArgumentException("No compilation unit is given in: " + argsPath);
+    }
+  }
+
+  @Override
+  public void build() {
+    if (!compile(resolve(sources), options, null)) {
+      throw new RuntimeException("Could not compile the target project");
+    }
+  }
+
+  @Override
+  public void setOverlay(Overlay overlay) {
+    this.overlay = overlay;
+  }
+
+  /** Replaces the given source files with their modified copies in the overlay if exist. */
+  protected Collection<File> resolve(Collection<File> units) {
+    if (overlay == null) {
+      return units;
+    }
+    return units.stream().map(overlay::resolve).collect(Collectors.toList());
+  }
+
+  /**
+   * Compiles the given compilation units.
+   *
+   * @param units Source files to compile.
+   * @param options Options passed to javac.
+   * @param listener Listener to register on the compilation task, can be {@code null}.
+   * @return {@code true} if the compilation finished without any error other than errors reported
+   *     by Error Prone checkers (e.g. NullAway), which are expected in every build.
+   */
+  protected boolean compile(Collection<File> units, List<String> options, TaskListener listener) {
+    Iterable<? extends JavaFileObject> compilationUnits =
+        fileManager.getJavaFileObjectsFromFiles(units);
+    AtomicInteger errors = new AtomicInteger();
+    DiagnosticListener<JavaFileObject> diagnostics =
+        diagnostic -> {
+          if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+              && !ERROR_PRONE_CODE.equals(diagnostic.getCode())) {
+            errors.incrementAndGet();
+          }
+        };
+    JavaCompiler.CompilationTask task =
+        compiler.getTask(DISCARD, fileManager, diagnostics, options, null, compilationUnits);
+    if (listener != null) {
+      ((JavacTask) task).addTaskListener(listener);
+    }
+    try {
+      return task.call() || errors.get() == 0;
+    } catch (RuntimeException e) {
+      throw new RuntimeException("Exception happened in compiling the target project", e);
+    }
+  }
+}
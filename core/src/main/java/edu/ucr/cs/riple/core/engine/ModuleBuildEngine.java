@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.engine;
+
+import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.metadata.modules.ModuleMap;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.workers.Worker;
+import edu.ucr.cs.riple.injector.Fix;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Build engine for multi-module projects which only builds the modules affected by the injected
+ * fixes: modules containing the fixes and the regions where the fixed elements are used, and all
+ * modules depending on them. The targets of these modules replace {@link #TARGETS} in the module
+ * build command.
+ *
+ * <p>Whenever a fix or a region cannot be mapped to a module, or no fix is injected, the whole
+ * project is built with the user given build command.
+ */
+public class ModuleBuildEngine extends CommandBuildEngine {
+
+  /** Placeholder in the module build command for targets of affected modules. */
+  public static final String TARGETS = "{targets}";
+
+  private final String moduleCommand;
+  private final ModuleMap modules;
+  private final Annotator annotator;
+  private final Worker worker;
+  /** Modules built in the latest build, {@code null} if the whole project was built. */
+  private Set<ModuleMap.Module> built;
+
+  public ModuleBuildEngine(
+      String command,
+      String moduleCommand,
+      ModuleMap modules,
+      Annotator annotator,
+      Worker worker) {
+    super(command);
+    this.moduleCommand = moduleCommand;
+    this.modules = modules;
+    this.annotator = annotator;
+    this.worker = worker;
+  }
+
+  @Override
+  public void build() {
+    Set<ModuleMap.Module> affected = findAffectedModules(worker.getInjectedFixes());
+    if (affected == null) {
+      built = null;
+      super.build();
+      return;
+    }
+    built = modules.withDependents(affected);
+    execute(
+        moduleCommand.replace(
+            TARGETS,
+            built.stream().map(module -> module.target).collect(Collectors.joining(" "))));
+  }
+
+  @Override
+  public Predicate<String> getCheckedClasses() {
+    if (built == null) {
+      return null;
+    }
+    final Set<ModuleMap.Module> checked = built;
+    return clazz -> checked.contains(modules.findByClass(clazz));
+  }
+
+  /**
+   * Computes the modules containing the injected fixes and the regions impacted by them.
+   *
+   * @return Set of modules or {@code null} if the whole project needs to be built.
+   */
+  private Set<ModuleMap.Module> findAffectedModules(Set<Fix> fixes) {
+    if (fixes.isEmpty()) {
+      return null;
+    }
+    Set<ModuleMap.Module> ans = new HashSet<>();
+    for (Fix fix : fixes) {
+      ModuleMap.Module module = modules.findByUri(fix.uri);
+      if (module == null) {
+        return null;
+      }
+      ans.add(module);
+      for (Region region : annotator.getImpactedRegions(fix)) {
+        if (region.clazz.equals("null")) {
+          continue;
+        }
+        module = modules.findByClass(region.clazz);
+        if (module == null) {
+          return null;
+        }
+        ans.add(module);
+      }
+    }
+    return ans;
+  }
+}
@@ -40,14 +40,23 @@ import edu.ucr.cs.riple.core.util.Utility;
 import edu.ucr.cs.riple.injector.Fix;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import me.tongfei.progressbar.ProgressBar;
 
+/**
+ * Explorer which computes the effect of fixes in groups. Nodes of all applicable fixes are added
+ * to a {@link FixGraph} which can be shared with other explorers, nodes of fixes with disjoint
+ * regions are injected in the same build regardless of the explorer they belong to.
+ */
 public abstract class AdvancedExplorer extends BasicExplorer {
 
   final FixGraph<Node> fixGraph;
+  /** Nodes added to the graph by this explorer. */
+  protected final List<Node> nodes;
+
   protected RegionTracker tracker;
   protected final FixType fixType;
 
@@ -56,25 +65,35 @@ public abstract class AdvancedExplorer extends BasicExplorer {
       List<Fix> fixes,
       Bank<Error> errorBank,
       Bank<FixEntity> fixBank,
-      FixType fixType) {
+      FixType fixType,
+      FixGraph<Node> fixGraph) {
     super(annotator, errorBank, fixBank);
     this.fixType = fixType;
-    this.fixGraph = new FixGraph<>(Node::new);
+    this.fixGraph = fixGraph;
+    this.nodes = new ArrayList<>();
     fixes.forEach(
         fix -> {
           if (isApplicable(fix)) {
-            fixGraph.findOrCreate(fix);
+            nodes.add(fixGraph.findOrCreate(fix));
           }
         });
-    if (fixGraph.nodes.size() > 0) {
+    if (nodes.size() > 0) {
       init();
-      explore();
     }
   }
 
+  /** Prepares nodes of this explorer for exploration. */
   protected abstract void init();
 
-  protected void explore() {
+  /**
+   * Explores all nodes of the graph, including the nodes added by other explorers sharing the
+   * graph. Nodes are grouped once and each group is explored in a single build.
+   */
+  public void explore() {
+    if (fixGraph.nodes.size() == 0) {
+      return;
+    }
+    fixGraph.findGroups();
     HashMap<Integer, Set<Node>> groups = fixGraph.getGroups();
     System.out.println(
         "Scheduled for: "
@@ -82,44 +101,63 @@ public abstract class AdvancedExplorer extends BasicExplorer {
             + " builds for: "
             + fixGraph.getAllNodes().size()
             + " fixes");
-    ProgressBar pb = Utility.createProgressBar("Exploring " + fixType.name, groups.values().size());
-    for (Set<Node> nodes : groups.values()) {
-      pb.step();
-      List<Fix> fixes = nodes.stream().map(node -> node.fix).collect(Collectors.toList());
-      annotator.apply(fixes);
-      pb.setExtraMessage("Building");
-      FixSerializationConfig.Builder config =
-          new FixSerializationConfig.Builder()
-              .setSuggest(true, annotator.depth > 0)
-              .setAnnotations(annotator.nullableAnnot, "UNKNOWN")
-              .setOutputDirectory(annotator.dir.toString());
-      annotator.buildProject(config);
-      errorBank.saveState(false, true);
-      fixBank.saveState(true, true);
-      for (Node node : nodes) {
-        int totalEffect = 0;
-        List<Error> newErrors = new ArrayList<>();
-        for (Region region : node.regions) {
-          Result<Error> errorComparison =
-              errorBank.compareByMethod(region.clazz, region.method, false);
-          newErrors.addAll(errorComparison.dif);
-          totalEffect += errorComparison.size;
-          if (annotator.depth > 0) {
-            node.updateTriggered(
-                fixBank
-                    .compareByMethod(region.clazz, region.method, false)
-                    .dif
-                    .stream()
-                    .map(fixEntity -> fixEntity.fix)
-                    .collect(Collectors.toList()));
-          }
+    ProgressBar pb = Utility.createProgressBar("Exploring fixes", groups.values().size());
+    explore(
+        groups.values(),
+        nodes -> nodes.stream().map(node -> node.fix).collect(Collectors.toList()),
+        () ->
+            new FixSerializationConfig.Builder()
+                .setSuggest(true, annotator.depth > 0)
+                .setAnnotations(annotator.nullableAnnot, "UNKNOWN"),
+        this::analyze,
+        pb);
+    pb.close();
+  }
+
+  /**
+   * Attributes the errors in the regions of each node to it. Returns {@code false} if the number
+   * of errors in the project does not match the total effect charged to the nodes, i.e. the fixes
+   * changed errors which are not accounted for in their effects.
+   */
+  private boolean analyze(
+      Bank<Error> errorBank, Bank<FixEntity> fixBank, List<Node> nodes, List<Fix> fixes) {
+    // Only regions of the nodes are queried.
+    Set<Region> regions = new HashSet<>();
+    nodes.forEach(node -> regions.addAll(node.regions));
+    errorBank.saveState(regions);
+    fixBank.saveState(regions);
+    int attributed = 0;
+    for (Node node : nodes) {
+      int totalEffect = 0;
+      List<Error> newErrors = new ArrayList<>();
+      // Triggered fixes of a previous evaluation of a larger group are not reliable.
+      node.triggered.clear();
+      for (Region region : node.regions) {
+        Result<Error> errorComparison = errorBank.compareByRegion(region);
+        newErrors.addAll(errorComparison.dif);
+        totalEffect += errorComparison.size;
+        if (annotator.depth > 0) {
+          node.updateTriggered(
+              fixBank
+                  .compareByRegion(region)
+                  .dif
+                  .stream()
+                  .map(fixEntity -> fixEntity.fix)
+                  .collect(Collectors.toList()));
         }
-        node.analyzeStatus(newErrors);
-        node.setEffect(totalEffect, annotator.methodInheritanceTree, fixes);
       }
-      annotator.remove(fixes);
+      node.explored = true;
+      node.analyzeStatus(newErrors);
+      node.setEffect(totalEffect, annotator.methodInheritanceTree, fixes);
+      // Effects are compared after corrections for the resolved error and inheritance violations,
+      // which are outside the regions of the node.
+      attributed += node.effect;
     }
-    pb.close();
+    if (!annotator.bisect || nodes.size() == 1) {
+      // A single fix keeps its effect, as it is computed the same way without bisection.
+      return true;
+    }
+    return errorBank.compare() == attributed;
   }
 
   protected Report predict(Fix fix) {
@@ -127,10 +165,10 @@ public abstract class AdvancedExplorer extends BasicExplorer {
     if (node == null) {
       return null;
     }
-    Report report = new Report(fix, node.effect);
-    report.triggered = node.triggered;
-    report.finished = node.finished;
-    return report;
+    if (!node.explored) {
+      return Report.unexplored(fix);
+    }
+    return node.toReport();
   }
 
   @Override
@@ -142,6 +180,16 @@ public abstract class AdvancedExplorer extends BasicExplorer {
     return super.effect(fix);
   }
 
+  @Override
+  public boolean restore(Report report) {
+    Node node = fixGraph.find(report.fix);
+    if (node == null) {
+      return false;
+    }
+    node.restore(report);
+    return true;
+  }
+
   @Override
   public boolean requiresInjection(Fix fix) {
     return fixGraph.find(fix) == null;
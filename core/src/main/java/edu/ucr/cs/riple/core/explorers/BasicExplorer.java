@@ -24,11 +24,28 @@
 
 package edu.ucr.cs.riple.core.explorers;
 
+import com.uber.nullaway.fixserialization.FixSerializationConfig;
 import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.metadata.graph.AbstractNode;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.index.FixEntity;
+import edu.ucr.cs.riple.core.workers.Budget;
+import edu.ucr.cs.riple.core.workers.Worker;
 import edu.ucr.cs.riple.injector.Fix;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import me.tongfei.progressbar.ProgressBar;
 
 public class BasicExplorer extends Explorer {
 
@@ -45,4 +62,214 @@ public class BasicExplorer extends Explorer {
   public boolean requiresInjection(Fix fix) {
     return true;
   }
+
+  /** Attributes outputs of a build of a group to the nodes of the group. */
+  protected interface Analyzer<T> {
+
+    /**
+     * Attributes outputs of a build to the nodes of the group.
+     *
+     * @param errorBank Bank of errors reported in the build.
+     * @param fixBank Bank of fixes suggested in the build.
+     * @param group Nodes of the group.
+     * @param fixes Fixes injected in the build.
+     * @return {@code false} if the attribution is not reliable, a group with one node must always
+     *     be attributed.
+     */
+    boolean analyze(
+        Bank<Error> errorBank, Bank<FixEntity> fixBank, List<T> group, List<Fix> fixes);
+  }
+
+  /**
+   * Explores all groups, each group in a single build on one of the workers of the annotator. If
+   * pipelining is enabled, preparing the sources of the next group and analyzing the outputs of
+   * the previous group overlap with the build of each group.
+   *
+   * @param groups Groups of nodes to explore.
+   * @param fixes Fixes injected for a group.
+   * @param config Config of NullAway for builds.
+   * @param analyzer Attributes outputs of a build to the nodes of the group.
+   * @param pb Progress bar stepped once per group.
+   */
+  protected <T extends AbstractNode> void explore(
+      Collection<Set<T>> groups,
+      Function<Collection<T>, List<Fix>> fixes,
+      Supplier<FixSerializationConfig.Builder> config,
+      Analyzer<T> analyzer,
+      ProgressBar pb) {
+    explore(groups, fixes, config, analyzer, pb, annotator.bisect);
+  }
+
+  /**
+   * Explores all groups, see {@link #explore(Collection, Function, Supplier, Analyzer,
+   * ProgressBar)}.
+   *
+   * @param split If set, groups which cannot be attributed are split in halves even if bisection
+   *     is disabled, for analyzers whose attribution of a group is only an approximation.
+   */
+  protected <T extends AbstractNode> void explore(
+      Collection<Set<T>> groups,
+      Function<Collection<T>, List<Fix>> fixes,
+      Supplier<FixSerializationConfig.Builder> config,
+      Analyzer<T> analyzer,
+      ProgressBar pb,
+      boolean split) {
+    // Nodes restored from a previous run are not explored again.
+    List<Set<T>> remaining = new ArrayList<>();
+    for (Set<T> group : groups) {
+      Set<T> nodes = group.stream().filter(node -> !node.explored).collect(Collectors.toSet());
+      if (nodes.isEmpty()) {
+        pb.step();
+      } else {
+        remaining.add(nodes);
+      }
+    }
+    Analyzer<T> journaled =
+        (errorBank, fixBank, nodes, injected) -> {
+          boolean reliable = analyzer.analyze(errorBank, fixBank, nodes, injected);
+          if (reliable) {
+            record(nodes);
+          }
+          return reliable;
+        };
+    run(remaining, fixes, config, journaled, pb, split);
+  }
+
+  /**
+   * Records results of explored nodes in the journal of the annotator, final results are written
+   * as soon as their group is explored.
+   */
+  protected void record(List<? extends AbstractNode> nodes) {
+    List<Report> reports = nodes.stream().map(AbstractNode::toReport).collect(Collectors.toList());
+    annotator.journal.record(reports);
+    annotator.reportWriter.write(reports);
+  }
+
+  private <T extends AbstractNode> void run(
+      List<Set<T>> groups,
+      Function<Collection<T>, List<Fix>> fixes,
+      Supplier<FixSerializationConfig.Builder> config,
+      Analyzer<T> analyzer,
+      ProgressBar pb,
+      boolean split) {
+    if (annotator.pipeline) {
+      new Pipeline<>(annotator, fixes, config, analyzer, pb, split).run(order(groups, fixes));
+      return;
+    }
+    schedule(
+        groups,
+        fixes,
+        (worker, group) -> {
+          pb.step();
+          bisect(
+              worker,
+              new ArrayList<>(group),
+              split,
+              (w, nodes) -> {
+                List<Fix> injected = fixes.apply(nodes);
+                w.apply(injected);
+                try {
+                  annotator.buildProject(config.get(), w);
+                  return analyzer.analyze(w.errorBank, w.fixBank, nodes, injected);
+                } finally {
+                  w.remove(injected);
+                }
+              });
+        });
+  }
+
+  /**
+   * Marks the node of a group with one fix whose exploration failed as unexplored, therefore
+   * exploration continues and the fix is never applied.
+   */
+  static void fail(AbstractNode node, RuntimeException e) {
+    System.err.println("Exploration failed for fix: " + node.fix + ", " + e.getMessage());
+    node.explored = false;
+  }
+
+  /**
+   * Runs the given action for all groups on the workers of the annotator. A group is only
+   * processed if its build fits in the budget of exploration, nodes of skipped groups stay
+   * unexplored. With a limited budget, groups with the highest value (total number of errors
+   * which their fixes are suggested for) are processed first.
+   *
+   * @param groups Groups of nodes, each processed in a single build.
+   * @param fixes Fixes injected for a group.
+   * @param action Action to run on a group with the worker assigned to it.
+   */
+  private <T> void schedule(
+      Collection<Set<T>> groups,
+      Function<Collection<T>, List<Fix>> fixes,
+      BiConsumer<Worker, Set<T>> action) {
+    Budget budget = annotator.budget;
+    ToDoubleFunction<Set<T>> cost = group -> annotator.predictCost(fixes.apply(group));
+    BiConsumer<Worker, Set<T>> guarded =
+        (worker, group) -> {
+          if (budget.reserve(cost.applyAsDouble(group))) {
+            action.accept(worker, group);
+          }
+        };
+    if (!budget.isLimited()) {
+      annotator.pool.run(groups, cost, guarded);
+      return;
+    }
+    annotator.pool.run(order(groups, fixes), guarded);
+  }
+
+  /**
+   * Orders groups for exploration. With a limited budget the most valuable groups come first,
+   * otherwise the most expensive groups come first to keep the workers balanced.
+   */
+  private <T> List<Set<T>> order(
+      Collection<Set<T>> groups, Function<Collection<T>, List<Fix>> fixes) {
+    List<Set<T>> ordered = new ArrayList<>(groups);
+    if (annotator.budget.isLimited()) {
+      ordered.sort(
+          Comparator.comparingInt(
+                  (Set<T> group) ->
+                      fixes.apply(group).stream().mapToInt(fix -> fix.referred).sum())
+              .reversed());
+    } else {
+      ordered.sort(
+          Comparator.comparingDouble((Set<T> group) -> annotator.predictCost(fixes.apply(group)))
+              .reversed());
+    }
+    return ordered;
+  }
+
+  /**
+   * Explores a group of nodes in a single build on the given worker. If effects of the group
+   * cannot be attributed to its members (or the build fails) and bisection is enabled, the group
+   * is split in halves which are explored recursively. A single broken fix therefore costs a
+   * logarithmic number of extra builds in the size of the group.
+   *
+   * @param worker Worker to explore the group on.
+   * @param group Nodes to explore together.
+   * @param split If set, a group which cannot be attributed is split even if bisection is disabled.
+   * @param evaluator Injects the group, builds and attributes the effects to its nodes. Returns
+   *     {@code false} if the attribution is not reliable, a group with one node must always be
+   *     attributed.
+   */
+  private <T extends AbstractNode> void bisect(
+      Worker worker, List<T> group, boolean split, BiPredicate<Worker, List<T>> evaluator) {
+    boolean reliable;
+    try {
+      reliable = evaluator.test(worker, group);
+    } catch (RuntimeException e) {
+      if (!annotator.bisect) {
+        throw e;
+      }
+      if (group.size() == 1) {
+        fail(group.get(0), e);
+        return;
+      }
+      reliable = false;
+    }
+    if (reliable || !split || group.size() == 1) {
+      return;
+    }
+    int mid = group.size() / 2;
+    bisect(worker, group.subList(0, mid), split, evaluator);
+    bisect(worker, group.subList(mid, group.size()), split, evaluator);
+  }
 }
@@ -27,6 +27,8 @@ package edu.ucr.cs.riple.core.explorers;
 import com.uber.nullaway.fixserialization.FixSerializationConfig;
 import edu.ucr.cs.riple.core.Annotator;
 import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.ReportStore;
+import edu.ucr.cs.riple.core.metadata.graph.AbstractNode;
 import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
 import edu.ucr.cs.riple.core.metadata.graph.SuperNode;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
@@ -37,7 +39,9 @@ import edu.ucr.cs.riple.core.metadata.trackers.Region;
 import edu.ucr.cs.riple.core.util.Utility;
 import edu.ucr.cs.riple.injector.Fix;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -54,12 +58,14 @@ public class DeepExplorer extends BasicExplorer {
     this.fixGraph = new FixGraph<>(SuperNode::new);
   }
 
-  private boolean init(List<Report> reports) {
+  private boolean init(ReportStore reports) {
     this.fixGraph.clear();
     Set<Report> filteredReports =
         reports
+            .getReports()
             .stream()
-            .filter(report -> (report.effectiveNess > 0 && !report.finished))
+            .filter(
+                report -> (report.explored && report.effectiveNess > 0 && !report.finished))
             .collect(Collectors.toSet());
     filteredReports.forEach(
         report -> {
@@ -72,38 +78,97 @@ public class DeepExplorer extends BasicExplorer {
           node.updateUsages(tracker);
           node.changed = false;
         });
+    if (filteredReports.size() > 0) {
+      fixGraph.findGroups();
+    }
     return filteredReports.size() > 0;
   }
 
-  public void start(List<Report> reports) {
+  /**
+   * Prepares the graph for the next level by carrying over nodes of the previous level. Nodes
+   * whose chain did not grow are removed, the rest are extended with their newly triggered fixes
+   * and only their groups are updated.
+   */
+  private boolean advance() {
+    List<SuperNode> extended = new ArrayList<>();
+    for (SuperNode node : fixGraph.getAllNodes()) {
+      Report report = node.report;
+      if (report.finished || report.effectiveNess <= 0 || node.frozen) {
+        fixGraph.remove(node);
+        continue;
+      }
+      Set<Fix> grown = node.getNewTriggered();
+      node.mergeTriggered();
+      node.extendUsages(tracker, grown);
+      node.changed = false;
+      node.explored = false;
+      extended.add(node);
+    }
+    extended.forEach(fixGraph::updateGroup);
+    return extended.size() > 0;
+  }
+
+  public void start(ReportStore reports) {
     if (annotator.depth == 0) {
-      reports.forEach(report -> report.finished = true);
+      reports.getReports().forEach(report -> report.finished = true);
       return;
     }
     System.out.println("Deep explorer is active...\nMax Depth level: " + annotator.depth);
     for (int i = 0; i < annotator.depth; i++) {
+      if (annotator.budget.isExhausted()) {
+        System.out.println("Budget of exploration is exhausted at level " + (i + 1));
+        break;
+      }
       System.out.print("Analyzing at level " + (i + 1) + ", ");
-      if (!init(reports)) {
+      if (!(i == 0 ? init(reports) : advance())) {
         break;
       }
       explore();
-      List<SuperNode> nodes = fixGraph.getAllNodes();
-      nodes.forEach(
-          superNode -> {
-            Report report = superNode.report;
-            report.effectiveNess = superNode.effect;
-            report.followups = superNode.followUps;
-            report.triggered = superNode.triggered;
-            report.finished = !superNode.changed;
-          });
+      int gain = 0;
+      int changed = 0;
+      for (SuperNode superNode : fixGraph.getAllNodes()) {
+        if (!superNode.explored) {
+          // Budget ran out, the report of the previous level is kept.
+          continue;
+        }
+        Report report = superNode.report;
+        gain += report.effectiveNess - superNode.effect;
+        if (report.effectiveNess != superNode.effect) {
+          changed++;
+        } else if (annotator.deepFreeze) {
+          superNode.frozen = true;
+        }
+        report.effectiveNess = superNode.effect;
+        report.followups = superNode.followUps;
+        report.triggered = superNode.triggered;
+        report.finished = superNode.getNewTriggered().isEmpty();
+      }
+      if (hasConverged(gain, changed)) {
+        System.out.println(
+            "Deep analysis converged at level "
+                + (i + 1)
+                + " with gain: "
+                + gain
+                + " and changed chains: "
+                + changed);
+        break;
+      }
     }
   }
 
+  /**
+   * Returns true if deepening further is not worth the builds, according to the limits of the
+   * annotator on the gain and the number of changed chains at the last level.
+   */
+  private boolean hasConverged(int gain, int changed) {
+    return (annotator.deepMinGain > 0 && gain < annotator.deepMinGain)
+        || (annotator.deepMinChanged > 0 && changed < annotator.deepMinChanged);
+  }
+
   private void explore() {
     if (fixGraph.nodes.size() == 0) {
       return;
     }
-    fixGraph.findGroups();
     HashMap<Integer, Set<SuperNode>> groups = fixGraph.getGroups();
     System.out.println(
         "Scheduling for: "
@@ -113,36 +178,53 @@ public class DeepExplorer extends BasicExplorer {
             + " reports");
     ProgressBar pb = Utility.createProgressBar("Deep analysis", groups.size());
     pb.setExtraMessage("Building");
-    for (Set<SuperNode> group : groups.values()) {
-      pb.step();
-      List<Fix> fixes = new ArrayList<>();
-      group.forEach(superNode -> fixes.addAll(superNode.getFixChain()));
-      annotator.apply(fixes);
-      FixSerializationConfig.Builder config =
-          new FixSerializationConfig.Builder()
-              .setSuggest(true, true)
-              .setAnnotations(annotator.nullableAnnot, "UNKNOWN")
-              .setOutputDirectory(annotator.dir.toString());
-      annotator.buildProject(config);
-      errorBank.saveState(false, true);
-      fixBank.saveState(false, true);
-      group.forEach(
-          superNode -> {
-            int totalEffect = 0;
-            for (Region region : superNode.regions) {
-              totalEffect += errorBank.compareByMethod(region.clazz, region.method, false).size;
-              superNode.updateTriggered(
-                  fixBank
-                      .compareByMethod(region.clazz, region.method, false)
-                      .dif
-                      .stream()
-                      .map(fixEntity -> fixEntity.fix)
-                      .collect(Collectors.toList()));
-            }
-            superNode.setEffect(totalEffect, annotator.methodInheritanceTree, fixes);
-          });
-      annotator.remove(fixes);
-    }
+    explore(
+        groups.values(),
+        DeepExplorer::getFixes,
+        () ->
+            new FixSerializationConfig.Builder()
+                .setSuggest(true, true)
+                .setAnnotations(annotator.nullableAnnot, "UNKNOWN"),
+        this::analyze,
+        pb);
     pb.close();
   }
+
+  private boolean analyze(
+      Bank<Error> errorBank, Bank<FixEntity> fixBank, List<SuperNode> group, List<Fix> fixes) {
+    // Only regions of the chains are queried.
+    Set<Region> regions = new HashSet<>();
+    group.forEach(superNode -> regions.addAll(superNode.regions));
+    errorBank.saveState(regions);
+    fixBank.saveState(regions);
+    group.forEach(
+        superNode -> {
+          int totalEffect = 0;
+          for (Region region : superNode.regions) {
+            totalEffect += errorBank.compareByRegion(region).size;
+            superNode.updateTriggered(
+                fixBank
+                    .compareByRegion(region)
+                    .dif
+                    .stream()
+                    .map(fixEntity -> fixEntity.fix)
+                    .collect(Collectors.toList()));
+          }
+          superNode.setEffect(totalEffect, annotator.methodInheritanceTree, fixes);
+          superNode.explored = true;
+        });
+    return true;
+  }
+
+  // Results of deep levels depend on the previous level and are not journaled, on resume deep
+  // analysis starts over from the results of the other explorers. Reports are written once deep
+  // analysis is done.
+  @Override
+  protected void record(List<? extends AbstractNode> nodes) {}
+
+  private static List<Fix> getFixes(Collection<SuperNode> group) {
+    List<Fix> fixes = new ArrayList<>();
+    group.forEach(superNode -> fixes.addAll(superNode.getFixChain()));
+    return fixes;
+  }
 }
@@ -57,6 +57,16 @@ public abstract class Explorer {
     return Report.empty(fix);
   }
 
+  /**
+   * Restores the result of a fix explored in a previous run, so it is not explored again.
+   *
+   * @return {@code true} if the fix is explored by this explorer in groups and its result is
+   *     restored, otherwise the report is used as is.
+   */
+  public boolean restore(Report report) {
+    return false;
+  }
+
   public abstract boolean isApplicable(Fix fix);
 
   public abstract boolean requiresInjection(Fix fix);
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.explorers;
+
+import com.uber.nullaway.fixserialization.FixSerializationConfig;
+import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
+import edu.ucr.cs.riple.core.metadata.graph.Node;
+import edu.ucr.cs.riple.core.metadata.index.Bank;
+import edu.ucr.cs.riple.core.metadata.index.Error;
+import edu.ucr.cs.riple.core.metadata.index.FixEntity;
+import edu.ucr.cs.riple.core.metadata.index.Result;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.injector.Fix;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import me.tongfei.progressbar.ProgressBar;
+
+/**
+ * Explorer for fixes which are not covered by any other explorer. Instead of one build per fix,
+ * fixes are explored in batches where no two fixes are in the same top level class, and the effect
+ * of each fix is computed from the difference of errors in its own class. If a batch changes errors
+ * outside the classes of its fixes, it is split in halves and explored again until each fix is
+ * explored alone, where its effect is the difference of errors in the whole project.
+ *
+ * <p>Fixes which are not explored in batches (e.g. without a class) are explored in a build of
+ * their own.
+ */
+public class FallbackExplorer extends BasicExplorer {
+
+  private final FixGraph<Node> fixGraph;
+
+  public FallbackExplorer(
+      Annotator annotator, List<Fix> fixes, Bank<Error> errorBank, Bank<FixEntity> fixBank) {
+    super(annotator, errorBank, fixBank);
+    this.fixGraph = new FixGraph<>(Node::new);
+    fixes.forEach(
+        fix -> {
+          if (!fix.className.equals("null")) {
+            fixGraph.findOrCreate(fix);
+          }
+        });
+    // Fixes in the same top level class conflict, as they can change errors of each other.
+    fixGraph.updateUsages(
+        fix -> Collections.singleton(new Region(null, getTopLevelClass(fix.className))));
+  }
+
+  public void explore() {
+    if (fixGraph.nodes.size() == 0) {
+      return;
+    }
+    fixGraph.findGroups();
+    HashMap<Integer, Set<Node>> groups = fixGraph.getGroups();
+    System.out.println(
+        "Scheduled for: "
+            + groups.size()
+            + " builds for: "
+            + fixGraph.getAllNodes().size()
+            + " remaining fixes");
+    ProgressBar pb = Utility.createProgressBar("Exploring remaining fixes", groups.size());
+    explore(
+        groups.values(),
+        nodes -> nodes.stream().map(node -> node.fix).collect(Collectors.toList()),
+        () ->
+            new FixSerializationConfig.Builder()
+                .setSuggest(true, annotator.depth > 0)
+                .setAnnotations(annotator.nullableAnnot, "UNKNOWN"),
+        this::analyze,
+        pb,
+        true);
+    pb.close();
+  }
+
+  /**
+   * Attributes the errors in the class of each node to it. Returns {@code false} if the number of
+   * errors in the project does not match the total effect charged to the nodes, i.e. the fixes
+   * changed errors outside their classes, such groups are always split. A single node is charged
+   * with the difference of errors in the whole project.
+   */
+  private boolean analyze(
+      Bank<Error> errorBank, Bank<FixEntity> fixBank, List<Node> nodes, List<Fix> fixes) {
+    errorBank.saveState();
+    fixBank.saveState();
+    int attributed = 0;
+    for (Node node : nodes) {
+      Result<Error> errorComparison = errorBank.compareByClass(node.fix.className, false);
+      node.effect = nodes.size() == 1 ? errorBank.compare() : errorComparison.size;
+      node.explored = true;
+      attributed += node.effect;
+      node.analyzeStatus(errorComparison.dif);
+      node.triggered.clear();
+      if (annotator.depth > 0) {
+        node.updateTriggered(
+            fixBank
+                .compareByClass(node.fix.className, false)
+                .dif
+                .stream()
+                .map(fixEntity -> fixEntity.fix)
+                .collect(Collectors.toList()));
+      }
+    }
+    return nodes.size() == 1 || errorBank.compare() == attributed;
+  }
+
+  @Override
+  public Report effect(Fix fix) {
+    Node node = fixGraph.find(fix);
+    if (node == null) {
+      return super.effect(fix);
+    }
+    if (!node.explored) {
+      return Report.unexplored(fix);
+    }
+    return node.toReport();
+  }
+
+  @Override
+  public boolean restore(Report report) {
+    Node node = fixGraph.find(report.fix);
+    if (node == null) {
+      return false;
+    }
+    node.restore(report);
+    return true;
+  }
+
+  @Override
+  public boolean requiresInjection(Fix fix) {
+    return fixGraph.find(fix) == null;
+  }
+
+  private static String getTopLevelClass(String clazz) {
+    int index = clazz.indexOf('$');
+    return index > 0 ? clazz.substring(0, index) : clazz;
+  }
+}
@@ -26,6 +26,8 @@ package edu.ucr.cs.riple.core.explorers;
 
 import edu.ucr.cs.riple.core.Annotator;
 import edu.ucr.cs.riple.core.FixType;
+import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
+import edu.ucr.cs.riple.core.metadata.graph.Node;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.index.FixEntity;
@@ -35,15 +37,18 @@ import java.util.List;
 public class FieldExplorer extends AdvancedExplorer {
 
   public FieldExplorer(
-      Annotator annotator, List<Fix> fixes, Bank<Error> errorBank, Bank<FixEntity> fixBank) {
-    super(annotator, fixes, errorBank, fixBank, FixType.FIELD);
+      Annotator annotator,
+      List<Fix> fixes,
+      Bank<Error> errorBank,
+      Bank<FixEntity> fixBank,
+      FixGraph<Node> fixGraph) {
+    super(annotator, fixes, errorBank, fixBank, FixType.FIELD, fixGraph);
   }
 
   @Override
   protected void init() {
-    this.tracker = annotator.fieldRegionTracker;
-    fixGraph.updateUsages(tracker);
-    fixGraph.findGroups();
+    tracker = annotator.fieldRegionTracker;
+    nodes.forEach(node -> node.updateUsages(tracker));
   }
 
   @Override
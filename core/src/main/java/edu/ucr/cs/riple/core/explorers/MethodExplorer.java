@@ -26,6 +26,8 @@ package edu.ucr.cs.riple.core.explorers;
 
 import edu.ucr.cs.riple.core.Annotator;
 import edu.ucr.cs.riple.core.FixType;
+import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
+import edu.ucr.cs.riple.core.metadata.graph.Node;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.index.FixEntity;
@@ -35,15 +37,18 @@ import java.util.List;
 public class MethodExplorer extends AdvancedExplorer {
 
   public MethodExplorer(
-      Annotator annotator, List<Fix> fixes, Bank<Error> errorBank, Bank<FixEntity> fixBank) {
-    super(annotator, fixes, errorBank, fixBank, FixType.METHOD);
+      Annotator annotator,
+      List<Fix> fixes,
+      Bank<Error> errorBank,
+      Bank<FixEntity> fixBank,
+      FixGraph<Node> fixGraph) {
+    super(annotator, fixes, errorBank, fixBank, FixType.METHOD, fixGraph);
   }
 
   @Override
   protected void init() {
     tracker = annotator.methodRegionTracker;
-    fixGraph.updateUsages(tracker);
-    fixGraph.findGroups();
+    nodes.forEach(node -> node.updateUsages(tracker));
   }
 
   @Override
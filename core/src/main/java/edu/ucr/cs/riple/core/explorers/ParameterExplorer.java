@@ -27,15 +27,20 @@ package edu.ucr.cs.riple.core.explorers;
 import com.uber.nullaway.fixserialization.FixSerializationConfig;
 import edu.ucr.cs.riple.core.Annotator;
 import edu.ucr.cs.riple.core.FixType;
+import edu.ucr.cs.riple.core.metadata.graph.FixGraph;
 import edu.ucr.cs.riple.core.metadata.graph.Node;
 import edu.ucr.cs.riple.core.metadata.index.Bank;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.index.FixEntity;
 import edu.ucr.cs.riple.core.metadata.index.Result;
 import edu.ucr.cs.riple.core.metadata.method.MethodInheritanceTree;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
 import edu.ucr.cs.riple.core.util.Utility;
 import edu.ucr.cs.riple.injector.Fix;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import me.tongfei.progressbar.ProgressBar;
 
@@ -43,56 +48,83 @@ public class ParameterExplorer extends AdvancedExplorer {
 
   public ParameterExplorer(
       Annotator annotator, List<Fix> fixes, Bank<Error> errorBank, Bank<FixEntity> fixBank) {
-    super(annotator, fixes, errorBank, fixBank, FixType.PARAMETER);
+    super(annotator, fixes, errorBank, fixBank, FixType.PARAMETER, new FixGraph<>(Node::new));
   }
 
   @Override
   protected void init() {}
 
+  /** Parameters are explored in builds with parameter protection test, one per index. */
   @Override
-  protected void explore() {
+  public void explore() {
+    if (nodes.isEmpty()) {
+      return;
+    }
     int maxsize = MethodInheritanceTree.maxParamSize();
     List<Node> allNodes = fixGraph.getAllNodes();
     System.out.println("Scheduled for: " + maxsize + " builds for: " + allNodes.size() + " fixes");
     ProgressBar pb = Utility.createProgressBar("Exploring Method Params: ", maxsize);
+    List<Integer> indices = new ArrayList<>();
     for (int i = 0; i < maxsize; i++) {
-      pb.step();
-      pb.setExtraMessage(
-          "Analyzing params at index: (" + (i + 1) + " out of " + maxsize + ") for all methods...");
-      int finalI1 = i;
-      List<Node> subList =
-          allNodes
-              .stream()
-              .filter(node -> node.fix.index.equals(finalI1 + ""))
-              .collect(Collectors.toList());
-      if (subList.size() == 0) {
-        continue;
-      }
-      FixSerializationConfig.Builder config =
-          new FixSerializationConfig.Builder()
-              .setSuggest(true, true)
-              .setAnnotations(annotator.nullableAnnot, "UNKNOWN")
-              .setParamProtectionTest(true, i)
-              .setOutputDirectory(annotator.dir.toString());
-      annotator.buildProject(config);
-      errorBank.saveState(false, true);
-      fixBank.saveState(false, true);
-      for (Node node : subList) {
-        Result<Error> errorComparison =
-            errorBank.compareByMethod(node.fix.className, node.fix.method, false);
-        node.setEffect(errorComparison.size, annotator.methodInheritanceTree, null);
-        node.analyzeStatus(errorComparison.dif);
-        if (annotator.depth > 0) {
-          node.updateTriggered(
-              fixBank
-                  .compareByMethod(node.fix.className, node.fix.method, false)
-                  .dif
-                  .stream()
-                  .map(fixEntity -> fixEntity.fix)
-                  .collect(Collectors.toList()));
-        }
-      }
+      indices.add(i);
     }
+    annotator.pool.run(
+        indices,
+        (worker, i) -> {
+          pb.step();
+          pb.setExtraMessage(
+              "Analyzing params at index: ("
+                  + (i + 1)
+                  + " out of "
+                  + maxsize
+                  + ") for all methods...");
+          // Nodes restored from a previous run are not explored again.
+          List<Node> subList =
+              allNodes
+                  .stream()
+                  .filter(node -> !node.explored && node.fix.index.equals(i + ""))
+                  .collect(Collectors.toList());
+          if (subList.size() == 0) {
+            return;
+          }
+          // No fix is injected in the build, nodes of a refused build stay unexplored.
+          if (!annotator.budget.reserve(annotator.predictCost(Collections.emptyList()))) {
+            return;
+          }
+          FixSerializationConfig.Builder config =
+              new FixSerializationConfig.Builder()
+                  .setSuggest(true, true)
+                  .setAnnotations(annotator.nullableAnnot, "UNKNOWN")
+                  .setParamProtectionTest(true, i)
+                  .setOutputDirectory(worker.dir.toString());
+          annotator.buildProject(config, worker);
+          // Only methods of the parameters are queried.
+          Set<Region> regions =
+              subList
+                  .stream()
+                  .map(node -> new Region(node.fix.method, node.fix.className))
+                  .collect(Collectors.toSet());
+          worker.errorBank.saveState(regions);
+          worker.fixBank.saveState(regions);
+          for (Node node : subList) {
+            Result<Error> errorComparison =
+                worker.errorBank.compareByMethod(node.fix.className, node.fix.method, false);
+            node.setEffect(errorComparison.size, annotator.methodInheritanceTree, null);
+            node.explored = true;
+            node.analyzeStatus(errorComparison.dif);
+            if (annotator.depth > 0) {
+              node.updateTriggered(
+                  worker
+                      .fixBank
+                      .compareByMethod(node.fix.className, node.fix.method, false)
+                      .dif
+                      .stream()
+                      .map(fixEntity -> fixEntity.fix)
+                      .collect(Collectors.toList()));
+            }
+          }
+          record(subList);
+        });
     pb.close();
     System.out.println("Captured all methods behavior against nullability of parameters.");
   }
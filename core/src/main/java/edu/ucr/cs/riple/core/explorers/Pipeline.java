@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.explorers;
+
+import com.uber.nullaway.fixserialization.FixSerializationConfig;
+import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.metadata.graph.AbstractNode;
+import edu.ucr.cs.riple.core.metadata.index.Bank;
+import edu.ucr.cs.riple.core.metadata.index.Error;
+import edu.ucr.cs.riple.core.metadata.index.FixEntity;
+import edu.ucr.cs.riple.core.workers.Worker;
+import edu.ucr.cs.riple.injector.Fix;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import me.tongfei.progressbar.ProgressBar;
+
+/**
+ * Explores groups of nodes on the workers of the annotator in three overlapping stages. While a
+ * worker builds a group, fixes of its next group are injected into the staging area of the worker
+ * and outputs of its previous group are analyzed, therefore the time of each round is bounded by
+ * the build alone. Outputs of a build are copied into one of two alternating slots, so the next
+ * build can start before they are analyzed. Requires workers with an overlay.
+ *
+ * <p>Groups which cannot be attributed are split in halves (if splitting is enabled) and put back
+ * at the front of the queue.
+ */
+class Pipeline<T extends AbstractNode> {
+
+  private final Annotator annotator;
+  private final Function<Collection<T>, List<Fix>> fixes;
+  private final Supplier<FixSerializationConfig.Builder> config;
+  private final BasicExplorer.Analyzer<T> analyzer;
+  private final ProgressBar pb;
+  private final LinkedBlockingDeque<Task<T>> queue;
+  /** If set, groups which cannot be attributed are split. */
+  private final boolean split;
+
+  /** Group of nodes waiting in the queue. */
+  private static class Task<T> {
+    final List<T> nodes;
+    final List<Fix> fixes;
+    /** If {@code true}, task is a half of a split group. */
+    final boolean split;
+
+    Task(List<T> nodes, List<Fix> fixes, boolean split) {
+      this.nodes = nodes;
+      this.fixes = fixes;
+      this.split = split;
+    }
+  }
+
+  Pipeline(
+      Annotator annotator,
+      Function<Collection<T>, List<Fix>> fixes,
+      Supplier<FixSerializationConfig.Builder> config,
+      BasicExplorer.Analyzer<T> analyzer,
+      ProgressBar pb,
+      boolean split) {
+    this.annotator = annotator;
+    this.split = split;
+    this.fixes = fixes;
+    this.config = config;
+    this.analyzer = analyzer;
+    this.pb = pb;
+    this.queue = new LinkedBlockingDeque<>();
+  }
+
+  /** Explores the given groups in order, returns once all groups are explored. */
+  void run(List<Set<T>> groups) {
+    groups.forEach(group -> queue.add(createTask(new ArrayList<>(group), false)));
+    List<Integer> lanes =
+        IntStream.range(0, annotator.pool.size()).boxed().collect(Collectors.toList());
+    annotator.pool.run(lanes, (worker, lane) -> process(worker));
+  }
+
+  /** Processes tasks of the queue on the given worker until the queue is empty. */
+  private void process(Worker worker) {
+    ExecutorService helper =
+        Executors.newFixedThreadPool(
+            2,
+            runnable -> {
+              Thread thread = new Thread(runnable);
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      int slot = 0;
+      Task<T> next = poll();
+      Future<?> staged = stage(helper, worker, next);
+      Task<T> analyzed = null;
+      Future<Boolean> analysis = null;
+      while (next != null || analysis != null) {
+        if (next == null) {
+          // Analysis of the latest group might split it into new tasks.
+          complete(analyzed, analysis);
+          analysis = null;
+          next = poll();
+          staged = stage(helper, worker, next);
+          continue;
+        }
+        Task<T> current = next;
+        await(staged);
+        worker.promote();
+        next = poll();
+        staged = stage(helper, worker, next);
+        Task<T> previous = analyzed;
+        Future<Boolean> previousAnalysis = analysis;
+        analysis = null;
+        try {
+          annotator.buildProject(config.get(), worker);
+          Path dir = worker.dir.resolve("slots").resolve(String.valueOf(slot));
+          Bank<Error> errorBank = worker.errorBank.snapshot(dir);
+          Bank<FixEntity> fixBank = worker.fixBank.snapshot(dir);
+          slot = 1 - slot;
+          analysis =
+              helper.submit(
+                  () -> analyzer.analyze(errorBank, fixBank, current.nodes, current.fixes));
+          analyzed = current;
+        } catch (RuntimeException e) {
+          if (!annotator.bisect) {
+            throw e;
+          }
+          if (current.nodes.size() == 1) {
+            BasicExplorer.fail(current.nodes.get(0), e);
+          } else {
+            split(current);
+          }
+        } finally {
+          worker.remove(current.fixes);
+        }
+        complete(previous, previousAnalysis);
+      }
+    } finally {
+      helper.shutdownNow();
+    }
+  }
+
+  /** Returns the next task which fits in the budget, {@code null} if the queue is empty. */
+  private Task<T> poll() {
+    Task<T> task;
+    while ((task = queue.pollFirst()) != null) {
+      if (!task.split) {
+        pb.step();
+      }
+      if (annotator.budget.reserve(annotator.predictCost(task.fixes))) {
+        return task;
+      }
+    }
+    return null;
+  }
+
+  private Future<?> stage(ExecutorService helper, Worker worker, Task<T> task) {
+    return task == null ? null : helper.submit(() -> worker.stage(task.fixes));
+  }
+
+  /** Waits for the analysis of the given task, the task is split if it cannot be attributed. */
+  private void complete(Task<T> task, Future<Boolean> analysis) {
+    Boolean reliable = await(analysis);
+    if (reliable != null && !reliable && split && task.nodes.size() > 1) {
+      split(task);
+    }
+  }
+
+  private void split(Task<T> task) {
+    int mid = task.nodes.size() / 2;
+    queue.addFirst(createTask(task.nodes.subList(mid, task.nodes.size()), true));
+    queue.addFirst(createTask(task.nodes.subList(0, mid), true));
+  }
+
+  private Task<T> createTask(List<T> nodes, boolean split) {
+    return new Task<>(nodes, fixes.apply(nodes), split);
+  }
+
+  private static <V> V await(Future<V> future) {
+    if (future == null) {
+      return null;
+    }
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Exception happened in pipeline", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for pipeline", e);
+    }
+  }
+}
@@ -24,8 +24,8 @@
 
 package edu.ucr.cs.riple.core.metadata;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import edu.ucr.cs.riple.core.util.TsvReader;
+import edu.ucr.cs.riple.core.util.TsvRecord;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -50,29 +50,26 @@ public abstract class AbstractRelation<T> {
   }
 
   protected void fillNodes(Path path) throws IOException {
-    BufferedReader reader;
-    reader = new BufferedReader(new FileReader(path.toFile()));
-    String line = reader.readLine();
-    if (line != null) line = reader.readLine();
-    while (line != null) {
-      T node = addNodeByLine(line.split("\t"));
-      Integer hash = node.hashCode();
-      if (idHash.containsKey(hash)) {
-        List<T> localList = idHash.get(hash);
-        if (!localList.contains(node)) {
-          localList.add(node);
-        }
-      } else {
-        List<T> singleHash = new ArrayList<>();
-        singleHash.add(node);
-        idHash.put(hash, singleHash);
-      }
-      line = reader.readLine();
-    }
-    reader.close();
+    // Nodes are added in order, adding a node may depend on previous ones.
+    new TsvReader(path, false)
+        .forEach(
+            record -> {
+              T node = addNodeByLine(record);
+              Integer hash = node.hashCode();
+              if (idHash.containsKey(hash)) {
+                List<T> localList = idHash.get(hash);
+                if (!localList.contains(node)) {
+                  localList.add(node);
+                }
+              } else {
+                List<T> singleHash = new ArrayList<>();
+                singleHash.add(node);
+                idHash.put(hash, singleHash);
+              }
+            });
   }
 
-  protected abstract T addNodeByLine(String[] values);
+  protected abstract T addNodeByLine(TsvRecord record);
 
   public interface Comparator<T> {
     boolean matches(T candidate);
@@ -24,6 +24,7 @@
 
 package edu.ucr.cs.riple.core.metadata.graph;
 
+import edu.ucr.cs.riple.core.Report;
 import edu.ucr.cs.riple.core.metadata.index.Error;
 import edu.ucr.cs.riple.core.metadata.method.MethodInheritanceTree;
 import edu.ucr.cs.riple.core.metadata.trackers.Region;
@@ -49,6 +50,8 @@ public abstract class AbstractNode {
   public boolean changed;
   /** if <code>true</code>, no new triggered error is addressable by a fix */
   public boolean finished;
+  /** if <code>true</code>, effect of the node has been computed in a build */
+  public boolean explored;
 
   protected AbstractNode(Fix fix) {
     this.regions = new HashSet<>();
@@ -56,6 +59,7 @@ public abstract class AbstractNode {
     this.triggered = new HashSet<>();
     this.effect = 0;
     this.finished = false;
+    this.explored = false;
   }
 
   public abstract void updateUsages(RegionTracker tracker);
@@ -82,6 +86,24 @@ public abstract class AbstractNode {
     changed = (changed || (sizeAfter != sizeBefore));
   }
 
+  /** Restores the result of this node from a report of a previous run. */
+  public void restore(Report report) {
+    this.effect = report.effectiveNess;
+    this.finished = report.finished;
+    if (report.triggered != null) {
+      this.triggered = report.triggered;
+    }
+    this.explored = true;
+  }
+
+  /** Returns the report of the result of this node. */
+  public Report toReport() {
+    Report report = new Report(fix, effect);
+    report.triggered = triggered;
+    report.finished = finished;
+    return report;
+  }
+
   public void analyzeStatus(List<Error> newErrors) {
     this.finished = newErrors.stream().noneMatch(Error::isFixable);
   }
@@ -38,11 +38,13 @@ public class FixGraph<T extends AbstractNode> {
   public final HashMap<Integer, Set<T>> nodes;
 
   private final HashMap<Integer, Set<T>> groups;
+  private final HashMap<T, Integer> colors;
   private final Factory<T> factory;
 
   public FixGraph(Factory<T> factory) {
     nodes = new HashMap<>();
     groups = new HashMap<>();
+    colors = new HashMap<>();
     this.factory = factory;
   }
 
@@ -77,19 +79,58 @@ public class FixGraph<T extends AbstractNode> {
     return null;
   }
 
-  @SuppressWarnings("ALL")
   public void remove(Fix fix) {
-    int hash = AbstractNode.getHash(fix);
-    T toRemove = null;
-    if (nodes.containsKey(hash)) {
-      for (T candidate : nodes.get(hash)) {
-        if (candidate.fix.equals(fix)) {
-          toRemove = candidate;
-          break;
-        }
+    T node = find(fix);
+    if (node != null) {
+      remove(node);
+    }
+  }
+
+  /** Removes the node from the graph and its group, coloring of other nodes stays valid. */
+  public void remove(T node) {
+    int hash = AbstractNode.getHash(node.fix);
+    Set<T> candidates = nodes.get(hash);
+    if (candidates != null) {
+      candidates.remove(node);
+      if (candidates.isEmpty()) {
+        nodes.remove(hash);
       }
     }
-    nodes.remove(toRemove);
+    Integer color = colors.remove(node);
+    if (color != null) {
+      Set<T> group = groups.get(color);
+      group.remove(node);
+      if (group.isEmpty()) {
+        groups.remove(color);
+      }
+    }
+  }
+
+  /**
+   * Updates the group of a node whose regions have grown since the last coloring. The node stays
+   * in its group if it is still conflict free there, otherwise it is moved to the first group it
+   * has no conflict with. Regions of all changed nodes must be updated before calling this method.
+   */
+  public void updateGroup(T node) {
+    Integer color = colors.get(node);
+    if (color == null) {
+      throw new RuntimeException("Node is not colored: " + node.fix);
+    }
+    Set<T> group = groups.get(color);
+    if (group.stream().noneMatch(other -> other != node && node.hasConflictInUsage(other))) {
+      return;
+    }
+    group.remove(node);
+    if (group.isEmpty()) {
+      groups.remove(color);
+    }
+    int cr = 0;
+    while (groups.containsKey(cr)
+        && groups.get(cr).stream().anyMatch(node::hasConflictInUsage)) {
+      cr++;
+    }
+    groups.computeIfAbsent(cr, k -> new HashSet<>()).add(node);
+    colors.put(node, cr);
   }
 
   public void updateUsages(RegionTracker tracker) {
@@ -99,6 +140,7 @@ public class FixGraph<T extends AbstractNode> {
   @SuppressWarnings("All")
   public void findGroups() {
     this.groups.clear();
+    this.colors.clear();
     List<T> allNodes = getAllNodes();
     final int[] id = {0};
     allNodes.forEach(node -> node.id = id[0]++);
@@ -140,6 +182,7 @@ public class FixGraph<T extends AbstractNode> {
       Arrays.fill(available, true);
     }
     for (int i = 0; i < result.length; i++) {
+      colors.put(allNodes.get(i), result[i]);
       if (!groups.containsKey(result[i])) {
         Set<T> newList = new HashSet<>();
         newList.add(allNodes.get(i));
@@ -163,5 +206,6 @@ public class FixGraph<T extends AbstractNode> {
   public void clear() {
     nodes.clear();
     groups.clear();
+    colors.clear();
   }
 }
@@ -30,15 +30,17 @@ import edu.ucr.cs.riple.core.metadata.method.MethodInheritanceTree;
 import edu.ucr.cs.riple.core.metadata.trackers.RegionTracker;
 import edu.ucr.cs.riple.core.util.Utility;
 import edu.ucr.cs.riple.injector.Fix;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 
 public class SuperNode extends AbstractNode {
 
   public final Set<Fix> followUps;
   public Report report;
+  /** If set, the effect of the chain is stable and the chain is not extended anymore. */
+  public boolean frozen;
   private final Node root;
 
   public SuperNode(Fix fix) {
@@ -68,9 +70,16 @@ public class SuperNode extends AbstractNode {
     this.effect = total[0];
   }
 
+  /** Adds regions of the given fixes, which have just been appended to the chain. */
+  public void extendUsages(RegionTracker tracker, Collection<Fix> fixes) {
+    fixes.forEach(fix -> regions.addAll(tracker.getRegions(fix)));
+  }
+
+  // Chain grows between levels while the node is kept in hash based collections, therefore the
+  // hash must only depend on the root fix, consistent with equals.
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), followUps, report, root);
+    return super.hashCode();
   }
 
   @Override
@@ -86,4 +95,11 @@ public class SuperNode extends AbstractNode {
     this.followUps.addAll(this.triggered);
     this.triggered.clear();
   }
+
+  /** Returns triggered fixes which are not already in the chain. */
+  public Set<Fix> getNewTriggered() {
+    Set<Fix> ans = new HashSet<>(triggered);
+    ans.removeAll(followUps);
+    return ans;
+  }
 }
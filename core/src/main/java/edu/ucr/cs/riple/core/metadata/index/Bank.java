@@ -25,75 +25,218 @@
 package edu.ucr.cs.riple.core.metadata.index;
 
 import com.google.common.base.Preconditions;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.util.TsvReader;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class Bank<T extends Hashable> {
 
-  private final Index<T> rootInClass;
-  private final Index<T> rootInMethod;
-  private Index<T> currentInMethod;
-  private Index<T> currentInClass;
+  private final Index<T> root;
+  private Index<T> current;
+  /** Method regions indexed in the latest saved state, {@code null} if all entities are indexed. */
+  private Set<Region> regions;
+  /** Differences of the latest build per method region, only regions which changed are kept. */
+  private Map<Region, Result<T>> deltas;
+  /** Difference of a region which did not change. */
+  private final Result<T> unchanged;
   private final Factory<T> factory;
   private final Path path;
+  /** Classes checked in the latest build, {@code null} if all classes were checked. */
+  private Predicate<String> scope;
 
   public Bank(Path path, Factory<T> factory) {
     this.factory = factory;
     this.path = path;
-    rootInClass = new Index<>(path, Index.Type.BY_CLASS, factory);
-    rootInMethod = new Index<>(path, Index.Type.BY_METHOD, factory);
-    rootInMethod.index();
-    rootInClass.index();
-    Preconditions.checkArgument(rootInClass.total == rootInMethod.total);
+    root = new Index<>(path, factory);
+    root.index();
+    unchanged = new Result<>(0, Collections.emptyList(), Collections.emptyList());
   }
 
-  public void saveState(boolean saveClass, boolean saveMethod) {
-    if (saveClass) {
-      currentInClass = new Index<>(this.path, Index.Type.BY_CLASS, factory);
-      currentInClass.index();
+  private Bank(Bank<T> other, Path path) {
+    this.factory = other.factory;
+    this.path = path;
+    this.root = other.root;
+    this.unchanged = other.unchanged;
+    this.scope = other.scope;
+  }
+
+  /**
+   * Creates a bank sharing the root state of this bank which saves its states from the file at
+   * the given path. Used to compare outputs of builds serialized at different directories.
+   *
+   * @param path Path to the file to read states from.
+   * @return A new bank with the same root state.
+   */
+  public Bank<T> fork(Path path) {
+    return new Bank<>(this, path);
+  }
+
+  /**
+   * Copies the file of this bank into the given directory and returns a bank reading the copy,
+   * therefore its states are not affected by later builds. The scope of the latest build is kept.
+   *
+   * @param dir Directory to copy the file into.
+   * @return A new bank with the same root state, reading the copy.
+   */
+  public Bank<T> snapshot(Path dir) {
+    Path copy = dir.resolve(path.getFileName());
+    try {
+      Files.createDirectories(dir);
+      Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not take a snapshot of: " + path, e);
     }
-    if (saveMethod) {
-      currentInMethod = new Index<>(this.path, Index.Type.BY_METHOD, factory);
-      currentInMethod.index();
+    return fork(copy);
+  }
+
+  /**
+   * Sets the classes which were checked in the latest build. Entities of all other classes are
+   * not serialized in the latest build and are carried over from the root state.
+   *
+   * @param scope Predicate on fully qualified class names, {@code null} if all classes were
+   *     checked.
+   */
+  public void setScope(Predicate<String> scope) {
+    this.scope = scope;
+  }
+
+  /**
+   * Reads entities serialized in the latest build, indexed both by class and by method, and
+   * computes the differences of all method regions.
+   */
+  public void saveState() {
+    saveState(null);
+  }
+
+  /**
+   * Reads entities of the given method regions serialized in the latest build and computes their
+   * differences. Entries of other regions are skipped while reading, therefore until the next
+   * state is saved only these regions can be compared.
+   *
+   * @param regions Method regions queried in the latest build, {@code null} for all entities.
+   */
+  public void saveState(Set<Region> regions) {
+    Index<T> index = new Index<>(this.path, factory);
+    index.index(regions);
+    if (scope != null) {
+      index.addAll(root, scope.negate(), regions);
+    }
+    current = index;
+    this.regions = regions;
+    deltas = new HashMap<>();
+    Map<Region, List<T>> previous = root.getRegions();
+    if (regions != null) {
+      for (Region region : regions) {
+        putIfChanged(
+            region,
+            compareByList(
+                previous.getOrDefault(region, Collections.emptyList()),
+                current.getRegions().getOrDefault(region, Collections.emptyList())));
+      }
+      return;
+    }
+    current
+        .getRegions()
+        .forEach(
+            (region, items) ->
+                putIfChanged(
+                    region,
+                    compareByList(previous.getOrDefault(region, Collections.emptyList()), items)));
+    previous.forEach(
+        (region, items) -> {
+          if (!current.getRegions().containsKey(region)) {
+            putIfChanged(region, compareByList(items, Collections.emptyList()));
+          }
+        });
+  }
+
+  private void putIfChanged(Region region, Result<T> delta) {
+    if (delta.size != 0 || !delta.dif.isEmpty() || !delta.removed.isEmpty()) {
+      deltas.put(region, delta);
     }
   }
 
+  /**
+   * Computes the multiset difference of the entities, entities are matched by their equality and
+   * each entity of the previous state cancels at most one equal entity of the current state.
+   */
   private Result<T> compareByList(List<T> previousItems, List<T> currentItems) {
-    int size = currentItems.size() - previousItems.size();
-    previousItems.forEach(currentItems::remove);
-    return new Result<>(size, currentItems);
+    Map<T, Integer> remaining = new HashMap<>();
+    previousItems.forEach(item -> remaining.merge(item, 1, Integer::sum));
+    List<T> added = new ArrayList<>();
+    for (T item : currentItems) {
+      Integer count = remaining.get(item);
+      if (count == null) {
+        added.add(item);
+      } else if (count == 1) {
+        remaining.remove(item);
+      } else {
+        remaining.put(item, count - 1);
+      }
+    }
+    List<T> removed = new ArrayList<>();
+    for (T item : previousItems) {
+      Integer count = remaining.get(item);
+      if (count != null) {
+        removed.add(item);
+        if (count == 1) {
+          remaining.remove(item);
+        } else {
+          remaining.put(item, count - 1);
+        }
+      }
+    }
+    return new Result<>(currentItems.size() - previousItems.size(), added, removed);
   }
 
   public Result<T> compareByClass(String className, boolean fresh) {
-    saveState(fresh, false);
-    return compareByList(rootInClass.getByClass(className), currentInClass.getByClass(className));
+    if (fresh) {
+      saveState();
+    }
+    Preconditions.checkState(regions == null, "Classes are not indexed in the saved state.");
+    return compareByList(root.getByClass(className), current.getByClass(className));
   }
 
   public Result<T> compareByMethod(String className, String methodName, boolean fresh) {
-    saveState(false, fresh);
-    return compareByList(
-        rootInMethod.getByMethod(className, methodName),
-        currentInMethod.getByMethod(className, methodName));
+    if (fresh) {
+      saveState();
+    }
+    return compareByRegion(new Region(methodName, className));
+  }
+
+  /** Returns the difference of the given method region in the latest saved state. */
+  public Result<T> compareByRegion(Region region) {
+    if (regions != null && !regions.contains(region)) {
+      throw new IllegalStateException("Region is not indexed in the saved state: " + region);
+    }
+    return deltas.getOrDefault(region, unchanged);
   }
 
   public int compare() {
-    BufferedReader reader;
+    // Entries are counted the same way they are indexed, multi-line entries are counted once.
     int lines = 0;
     try {
-      reader = new BufferedReader(new FileReader(path.toFile()));
-      reader.readLine();
-      while (reader.readLine() != null) lines++;
-      reader.close();
+      lines = new TsvReader(path, true).count();
     } catch (IOException e) {
       e.printStackTrace();
     }
-    return lines - rootInClass.total;
+    if (scope != null) {
+      lines += (int) getAllEntities().stream().filter(t -> !scope.test(t.clazz)).count();
+    }
+    return lines - root.total;
   }
 
   public List<T> getAllEntities() {
-    return rootInClass.getAllEntities();
+    return root.getAllEntities();
   }
 }
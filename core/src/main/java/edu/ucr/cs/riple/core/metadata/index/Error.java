@@ -24,9 +24,22 @@
 package edu.ucr.cs.riple.core.metadata.index;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Objects;
 import java.util.Set;
 
 public class Error extends Hashable {
+
+  private static final Set<String> FIXABLE_TYPES =
+      ImmutableSet.of(
+          "METHOD_NO_INIT",
+          "FIELD_NO_INIT",
+          "ASSIGN_FIELD_NULLABLE",
+          "NONNULL_FIELD_READ_BEFORE_INIT",
+          "RETURN_NULLABLE",
+          "WRONG_OVERRIDE_RETURN",
+          "PASS_NULLABLE",
+          "RETURN_NULLABLE,");
+
   public final String messageType;
   public final String message;
 
@@ -57,18 +70,24 @@ public class Error extends Hashable {
   }
 
   public boolean isFixable() {
-    final Set<String> fixableTypes =
-        ImmutableSet.of(
-            "METHOD_NO_INIT",
-            "FIELD_NO_INIT",
-            "ASSIGN_FIELD_NULLABLE",
-            "NONNULL_FIELD_READ_BEFORE_INIT",
-            "RETURN_NULLABLE",
-            "WRONG_OVERRIDE_RETURN",
-            "ASSIGN_FIELD_NULLABLE",
-            "WRONG_OVERRIDE_RETURN",
-            "PASS_NULLABLE",
-            "RETURN_NULLABLE,");
-    return fixableTypes.contains(this.messageType);
+    return FIXABLE_TYPES.contains(this.messageType);
+  }
+
+  // Errors are identified by their type, message and enclosing class and method, therefore the
+  // same error serialized in different builds is equal.
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Error)) return false;
+    Error error = (Error) o;
+    return Objects.equals(messageType, error.messageType)
+        && Objects.equals(message, error.message)
+        && Objects.equals(clazz, error.clazz)
+        && Objects.equals(method, error.method);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(messageType, message, clazz, method);
   }
 }
@@ -42,12 +42,14 @@ public class FixEntity extends Hashable {
     if (this == o) return true;
     if (!(o instanceof FixEntity)) return false;
     FixEntity fixEntity = (FixEntity) o;
-    return fix.equals(fixEntity.fix);
+    return fix.equals(fixEntity.fix)
+        && Objects.equals(clazz, fixEntity.clazz)
+        && Objects.equals(method, fixEntity.method);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(fix);
+    return Objects.hash(fix, clazz, method);
   }
 
   @Override
@@ -24,105 +24,129 @@
 
 package edu.ucr.cs.riple.core.metadata.index;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.util.TsvReader;
+import edu.ucr.cs.riple.core.util.TsvRecord;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
+/**
+ * Entities serialized in a build, indexed both by their class and by their method. Both indexes
+ * share the same entity objects and are filled in a single pass over the file.
+ */
 public class Index<T extends Hashable> {
 
-  private final HashMap<Integer, List<T>> items;
+  private final HashMap<Integer, List<T>> byClass;
+  /** Entities by their enclosing method, keyed by the exact region without hash collisions. */
+  private final HashMap<Region, List<T>> byMethod;
   private final Factory<T> factory;
   private final Path path;
-  private final Index.Type type;
   public int total;
+  /** Number of entries in the file which are not indexed, see {@link #index(Set)}. */
+  public int skipped;
 
-  public enum Type {
-    BY_METHOD,
-    BY_CLASS
-  }
-
-  public Index(Path path, Index.Type type, Factory<T> factory) {
-    this.type = type;
+  public Index(Path path, Factory<T> factory) {
     this.path = path;
-    this.items = new HashMap<>();
+    this.byClass = new HashMap<>();
+    this.byMethod = new HashMap<>();
     this.factory = factory;
     this.total = 0;
   }
 
   public void index() {
-    items.clear();
-    try (BufferedReader br = Files.newBufferedReader(this.path, UTF_8)) {
-      String entry = "";
-      br.readLine(); // consume headers
-      while (entry != null) {
-        String nextLine = br.readLine();
-        if (entry.equals("")) {
-          entry = nextLine;
-          continue;
-        } else if (nextLine == null) {
-          // End of file: this finalizes entry, but it still needs processing
-        } else if (nextLine.startsWith(" ") || nextLine.startsWith("\t") || nextLine.equals("")) {
-          entry += "\n" + nextLine;
-          continue;
-        }
-        // At this point, entry contains a full TSV entry, potentially multi-line as long
-        // as each line break in an item is followed by a whitespace or tab character
-        String[] allParts = entry.split("\t");
-        String[] tsvValues;
-        if (entry.contains("\n")) {
-          tsvValues = new String[4];
-          tsvValues[0] = allParts[0];
-          tsvValues[3] = allParts[allParts.length - 1];
-          tsvValues[2] = allParts[allParts.length - 2];
-          tsvValues[1] = "";
-          for (int i = 1; i < allParts.length - 3; ++i) {
-            tsvValues[2] += allParts[i] + "\t";
-          }
-          tsvValues[2] += allParts[allParts.length - 3];
-        } else {
-          tsvValues = allParts;
-        }
-        T item;
-        try {
-          item = factory.build(tsvValues);
-        } catch (ArrayIndexOutOfBoundsException e) {
-          throw new java.lang.Error(
-              String.format("Failed to parse entry '%s' on file %s", entry, path), e);
-        }
-        total++;
-        int hash;
-        if (type.equals(Index.Type.BY_CLASS)) {
-          hash = Objects.hash(item.clazz);
-        } else {
-          hash = Objects.hash(item.clazz, item.method);
-        }
-        if (items.containsKey(hash)) {
-          items.get(hash).add(item);
-        } else {
-          List<T> newList = new ArrayList<>();
-          newList.add(item);
-          items.put(hash, newList);
-        }
-        entry = nextLine; // For next iteration
-      }
+    index(null);
+  }
+
+  /**
+   * Indexes entities of the given method regions. All other entries are only counted in {@link
+   * #skipped} and are not parsed, entries are located by their last two fields which are the class
+   * and the method of the entity.
+   *
+   * @param regions Method regions to index, {@code null} to index all entries.
+   */
+  public void index(Set<Region> regions) {
+    byClass.clear();
+    byMethod.clear();
+    total = 0;
+    AtomicInteger skipped = new AtomicInteger();
+    try {
+      new TsvReader(this.path, true)
+          .map(
+              entry -> {
+                if (regions == null || regions.contains(regionOf(entry))) {
+                  return build(entry);
+                }
+                skipped.incrementAndGet();
+                return null;
+              })
+          .forEach(this::add);
     } catch (IOException e) {
       e.printStackTrace();
     }
+    this.skipped = skipped.get();
+  }
+
+  private static Region regionOf(TsvRecord entry) {
+    int size = entry.size();
+    return size < 2 ? new Region(null, null) : new Region(entry.get(size - 1), entry.get(size - 2));
+  }
+
+  private T build(TsvRecord entry) {
+    // Line breaks in a multi-line entry are only in the message, all fields between the first one
+    // and the last two are parts of the message.
+    try {
+      return factory.build(
+          entry.isMultiLine() ? entry.toArray(1, entry.size() - 2) : entry.toArray());
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new java.lang.Error(
+          String.format("Failed to parse entry '%s' on file %s", entry, path), e);
+    }
+  }
+
+  private void add(T item) {
+    total++;
+    byClass.computeIfAbsent(Objects.hash(item.clazz), k -> new ArrayList<>()).add(item);
+    byMethod.computeIfAbsent(new Region(item.method, item.clazz), k -> new ArrayList<>()).add(item);
+  }
+
+  /**
+   * Adds all entities of the given index which their class matches the given predicate.
+   *
+   * @param other Index to copy entities from.
+   * @param classPredicate Predicate on fully qualified name of the entity's class.
+   * @param regions Only entities of these method regions are added, {@code null} for all regions.
+   */
+  public void addAll(Index<T> other, Predicate<String> classPredicate, Set<Region> regions) {
+    Collection<List<T>> lists =
+        regions == null
+            ? other.byMethod.values()
+            : regions
+                .stream()
+                .map(other.byMethod::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    for (List<T> list : lists) {
+      for (T item : list) {
+        if (classPredicate.test(item.clazz)) {
+          add(item);
+        }
+      }
+    }
   }
 
   public List<T> getByClass(String clazz) {
-    List<T> ans = items.get(Objects.hash(clazz));
+    List<T> ans = byClass.get(Objects.hash(clazz));
     if (ans == null) {
       return Collections.emptyList();
     }
@@ -130,18 +154,21 @@ public class Index<T extends Hashable> {
   }
 
   public List<T> getByMethod(String clazz, String method) {
-    List<T> ans = items.get(Objects.hash(clazz, method));
+    List<T> ans = byMethod.get(new Region(method, clazz));
     if (ans == null) {
       return Collections.emptyList();
     }
-    return ans.stream()
-        .filter(item -> item.clazz.equals(clazz) && item.method.equals(method))
-        .collect(Collectors.toList());
+    return new ArrayList<>(ans);
+  }
+
+  /** Returns entities of all method regions, lists must not be modified. */
+  Map<Region, List<T>> getRegions() {
+    return Collections.unmodifiableMap(byMethod);
   }
 
   public List<T> getAllEntities() {
     List<T> ans = new ArrayList<>();
-    items.forEach((integer, ts) -> ans.addAll(ts));
+    byClass.forEach((integer, ts) -> ans.addAll(ts));
     return ans;
   }
 }
@@ -26,13 +26,19 @@ package edu.ucr.cs.riple.core.metadata.index;
 
 import java.util.List;
 
+/** Difference of entities of a region between the root state and the latest build. */
 public class Result<T> {
 
+  /** Change in the number of entities. */
   public final int size;
+  /** Entities which are added in the latest build. */
   public final List<T> dif;
+  /** Entities of the root state which are removed in the latest build. */
+  public final List<T> removed;
 
-  public Result(int size, List<T> dif) {
+  public Result(int size, List<T> dif, List<T> removed) {
     this.size = size;
     this.dif = dif;
+    this.removed = removed;
   }
 }
@@ -25,6 +25,7 @@
 package edu.ucr.cs.riple.core.metadata.method;
 
 import edu.ucr.cs.riple.core.metadata.AbstractRelation;
+import edu.ucr.cs.riple.core.util.TsvRecord;
 import edu.ucr.cs.riple.core.util.Utility;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -53,8 +54,8 @@ public class MethodInheritanceTree extends AbstractRelation<MethodNode> {
   }
 
   @Override
-  protected MethodNode addNodeByLine(String[] values) {
-    Integer id = Integer.parseInt(values[0]);
+  protected MethodNode addNodeByLine(TsvRecord record) {
+    Integer id = Integer.parseInt(record.get(0));
     MethodNode node;
     if (nodes.containsKey(id)) {
       node = nodes.get(id);
@@ -62,19 +63,19 @@ public class MethodInheritanceTree extends AbstractRelation<MethodNode> {
       node = new MethodNode();
       nodes.put(id, node);
     }
-    Integer parentId = Integer.parseInt(values[3]);
-    int size = Integer.parseInt(values[4]);
+    Integer parentId = Integer.parseInt(record.get(3));
+    int size = Integer.parseInt(record.get(4));
     if (size > maxsize) {
       maxsize = size;
     }
     node.fillInformation(
         id,
-        values[1],
-        values[2],
+        record.get(1),
+        record.get(2),
         parentId,
         size,
-        Utility.convertStringToBooleanArray(values[5]),
-        Boolean.getBoolean(values[6]));
+        Utility.convertStringToBooleanArray(record.get(5)),
+        Boolean.getBoolean(record.get(6)));
     if (parentId != -1) {
       MethodNode parent = nodes.get(parentId);
       if (parent == null) {
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.metadata.modules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map of build modules of the target project. Read from a file where each line describes a module
+ * with tab separated values: name, source root, build target and names of the modules it depends
+ * on (comma separated, can be empty). Empty lines and lines starting with {@code #} are ignored.
+ */
+public class ModuleMap {
+
+  /** Build module of the target project. */
+  public static class Module {
+    public final String name;
+    /** Root directory of the sources, where the directories of packages are located. */
+    public final Path root;
+    /** Target passed to the build command to build this module. */
+    public final String target;
+    /** Modules directly depending on this module. */
+    private final Set<Module> dependents = new HashSet<>();
+
+    Module(String name, Path root, String target) {
+      this.name = name;
+      this.root = root;
+      this.target = target;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /** Modules sorted by length of their root, the innermost root of a file is found first. */
+  private final List<Module> modules;
+  /** Cache of modules found for classes. */
+  private final Map<String, Optional<Module>> classModules;
+
+  public ModuleMap(Path path) {
+    this.modules = new ArrayList<>();
+    this.classModules = new ConcurrentHashMap<>();
+    Map<String, Module> byName = new HashMap<>();
+    Map<Module, List<String>> dependencies = new HashMap<>();
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(path);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read module map at: " + path, e);
+    }
+    for (String line : lines) {
+      if (line.trim().isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] values = line.split("\t");
+      if (values.length < 3) {
+        throw new IllegalArgumentException("Malformed module description: " + line);
+      }
+      Module module = new Module(values[0], Paths.get(values[1]).toAbsolutePath(), values[2]);
+      byName.put(module.name, module);
+      modules.add(module);
+      dependencies.put(
+          module,
+          values.length > 3 && !values[3].trim().isEmpty()
+              ? Arrays.asList(values[3].trim().split(","))
+              : new ArrayList<>());
+    }
+    dependencies.forEach(
+        (module, names) ->
+            names.forEach(
+                name -> {
+                  Module dependency = byName.get(name.trim());
+                  if (dependency == null) {
+                    throw new IllegalArgumentException(
+                        "Unknown dependency: " + name + " of module: " + module.name);
+                  }
+                  dependency.dependents.add(module);
+                }));
+    modules.sort((o1, o2) -> o2.root.toString().length() - o1.root.toString().length());
+  }
+
+  /**
+   * Finds the module containing the source file at the given uri.
+   *
+   * @return The module, {@code null} if not found.
+   */
+  public Module findByUri(String uri) {
+    if (uri.startsWith("file:")) {
+      uri = uri.substring("file:".length());
+    }
+    Path path = Paths.get(uri).toAbsolutePath();
+    for (Module module : modules) {
+      if (path.startsWith(module.root)) {
+        return module;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the module declaring the given class, by locating the source file of its top level
+   * class under the root of the modules.
+   *
+   * @param clazz Fully qualified name of the class, can be nested, local or anonymous.
+   * @return The module, {@code null} if not found.
+   */
+  public Module findByClass(String clazz) {
+    return classModules.computeIfAbsent(clazz, k -> Optional.ofNullable(locate(k))).orElse(null);
+  }
+
+  private Module locate(String clazz) {
+    String name = clazz;
+    if (name.startsWith("<anonymous ") && name.endsWith(">")) {
+      name = name.substring("<anonymous ".length(), name.length() - 1);
+    }
+    int index = name.indexOf('$');
+    if (index > 0) {
+      name = name.substring(0, index);
+    }
+    while (true) {
+      String file = name.replace('.', '/') + ".java";
+      for (Module module : modules) {
+        if (Files.exists(module.root.resolve(file))) {
+          return module;
+        }
+      }
+      index = name.lastIndexOf('.');
+      if (index < 0) {
+        return null;
+      }
+      name = name.substring(0, index);
+    }
+  }
+
+  /** Returns the given modules with all modules transitively depending on them. */
+  public Set<Module> withDependents(Set<Module> modules) {
+    Set<Module> ans = new HashSet<>(modules);
+    Deque<Module> queue = new ArrayDeque<>(modules);
+    while (!queue.isEmpty()) {
+      for (Module dependent : queue.poll().dependents) {
+        if (ans.add(dependent)) {
+          queue.add(dependent);
+        }
+      }
+    }
+    return ans;
+  }
+}
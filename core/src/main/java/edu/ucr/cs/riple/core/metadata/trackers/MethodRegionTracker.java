@@ -26,6 +26,7 @@ package edu.ucr.cs.riple.core.metadata.trackers;
 
 import edu.ucr.cs.riple.core.FixType;
 import edu.ucr.cs.riple.core.metadata.AbstractRelation;
+import edu.ucr.cs.riple.core.util.TsvRecord;
 import edu.ucr.cs.riple.injector.Fix;
 import java.nio.file.Path;
 import java.util.Set;
@@ -41,8 +42,8 @@ public class MethodRegionTracker extends AbstractRelation<TrackerNode> implement
   }
 
   @Override
-  protected TrackerNode addNodeByLine(String[] values) {
-    return new TrackerNode(values[0], values[1], values[2], values[3]);
+  protected TrackerNode addNodeByLine(TsvRecord record) {
+    return new TrackerNode(record.get(0), record.get(1), record.get(2), record.get(3));
   }
 
   @Override
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.util;
+
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.ReportStore;
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes reports of an exploration while it is running. Final reports are appended to {@code
+ * diagnose_report.ndjson} one per line as soon as they are available, once exploration is done
+ * all reports sorted by their effect are written to {@code diagnose_report.json}.
+ */
+public class ReportWriter {
+
+  private final Path dir;
+  private final Set<Fix> written;
+  private BufferedWriter stream;
+
+  /** Creates the writer, reports of the previous exploration at the given directory are removed. */
+  public ReportWriter(Path dir) {
+    this.dir = dir;
+    this.written = new HashSet<>();
+    try {
+      Files.deleteIfExists(dir.resolve("diagnose_report.json"));
+      this.stream = Files.newBufferedWriter(dir.resolve("diagnose_report.ndjson"));
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create reports at: " + dir, e);
+    }
+  }
+
+  /**
+   * Returns true if the report can not change anymore: the fix is effective, does not change the
+   * number of errors or triggers no new error which can be fixed in deeper levels.
+   */
+  public static boolean isFinal(Report report) {
+    return report.explored && (report.effectiveNess <= 0 || report.finished);
+  }
+
+  /** Appends the given reports which are final and not written yet. */
+  public synchronized void write(Collection<Report> reports) {
+    try {
+      for (Report report : reports) {
+        if (isFinal(report) && written.add(report.fix)) {
+          writeLine(stream, report);
+        }
+      }
+      stream.flush();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write reports at: " + dir, e);
+    }
+  }
+
+  /**
+   * Appends all remaining reports and writes the sorted reports at {@code diagnose_report.json}.
+   */
+  public synchronized void close(ReportStore store) {
+    List<Report> reports = store.getReports();
+    try {
+      for (Report report : reports) {
+        if (written.add(report.fix)) {
+          writeLine(stream, report);
+        }
+      }
+      stream.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write reports at: " + dir, e);
+    }
+    reports.sort(Comparator.comparingInt((Report report) -> report.effectiveNess).reversed());
+    Path path = dir.resolve("diagnose_report.json");
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      writer.write("{\"reports\":[");
+      for (int i = 0; i < reports.size(); i++) {
+        if (i > 0) {
+          writer.write(",");
+        }
+        writer.write(serialize(reports.get(i)));
+      }
+      writer.write("]}");
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create the Annotator report json file: " + path, e);
+    }
+  }
+
+  private static void writeLine(Writer writer, Report report) throws IOException {
+    writer.write(serialize(report));
+    writer.write("\n");
+  }
+
+  private static String serialize(Report report) {
+    return Utility.toJson(report).toJSONString().replace("\\/", "/").replace("\\\\\\", "\\");
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads records of a tsv file with a header line. The file is memory mapped and records are
+ * located by their byte offsets, see {@link TsvRecord}. Large files are parsed in parallel in
+ * chunks split at record boundaries.
+ */
+public class TsvReader {
+
+  /** Files are split into chunks of about this size to be parsed in parallel. */
+  private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private final ByteBuffer buffer;
+  private final int limit;
+  /**
+   * If set, a record continues on the next line if the line starts with a whitespace or tab
+   * character or is empty.
+   */
+  private final boolean multiLine;
+  /** Offset of the first record, right after the header line. */
+  private final int first;
+
+  /**
+   * Maps the file at the given path.
+   *
+   * @param path Path to the tsv file.
+   * @param multiLine If set, records can span multiple lines where each line break in a record is
+   *     followed by a whitespace or tab character, otherwise each line is a record.
+   */
+  public TsvReader(Path path, boolean multiLine) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("File is too large to be mapped: " + path);
+      }
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    this.limit = buffer.limit();
+    this.multiLine = multiLine;
+    this.first = next(0);
+  }
+
+  /** Passes all records in order to the given consumer. */
+  public void forEach(Consumer<TsvRecord> consumer) {
+    scan(first, limit, consumer);
+  }
+
+  /**
+   * Returns the results of the given parser on all records in order, records for which the parser
+   * returns {@code null} are dropped. Records are parsed in parallel, therefore the parser must not
+   * depend on other records.
+   */
+  public <T> List<T> map(Function<TsvRecord, T> parser) {
+    int chunks = Math.max(1, (limit - first) / CHUNK_SIZE);
+    if (chunks == 1) {
+      List<T> ans = new ArrayList<>();
+      scan(first, limit, record -> add(ans, parser.apply(record)));
+      return ans;
+    }
+    int[] bounds = new int[chunks + 1];
+    for (int i = 0; i < chunks; i++) {
+      bounds[i] = align(first + (int) ((long) (limit - first) * i / chunks));
+    }
+    bounds[chunks] = limit;
+    return IntStream.range(0, chunks)
+        .parallel()
+        .mapToObj(
+            i -> {
+              List<T> ans = new ArrayList<>();
+              scan(bounds[i], bounds[i + 1], record -> add(ans, parser.apply(record)));
+              return ans;
+            })
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  private static <T> void add(List<T> list, T item) {
+    if (item != null) {
+      list.add(item);
+    }
+  }
+
+  /** Returns the number of records, no field is decoded. */
+  public int count() {
+    int[] count = {0};
+    scan(first, limit, record -> count[0]++);
+    return count[0];
+  }
+
+  /** Passes records starting in the given range to the consumer. */
+  private void scan(int from, int to, Consumer<TsvRecord> consumer) {
+    int pos = from;
+    while (pos < to) {
+      int next = next(pos);
+      while (multiLine && isContinuation(next)) {
+        next = next(next);
+      }
+      int end = next;
+      while (end > pos && (buffer.get(end - 1) == '\n' || buffer.get(end - 1) == '\r')) {
+        end--;
+      }
+      if (end > pos) {
+        consumer.accept(new TsvRecord(buffer, pos, end));
+      }
+      pos = next;
+    }
+  }
+
+  /** Returns the start of the first record at or after the given offset. */
+  private int align(int pos) {
+    if (pos <= first) {
+      return first;
+    }
+    if (buffer.get(pos - 1) != '\n') {
+      pos = next(pos);
+    }
+    while (multiLine && isContinuation(pos)) {
+      pos = next(pos);
+    }
+    return pos;
+  }
+
+  /** Returns the start of the line after the line containing the given offset. */
+  private int next(int pos) {
+    while (pos < limit && buffer.get(pos) != '\n') {
+      pos++;
+    }
+    return Math.min(pos + 1, limit);
+  }
+
+  private boolean isContinuation(int pos) {
+    if (pos >= limit) {
+      return false;
+    }
+    byte b = buffer.get(pos);
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+}
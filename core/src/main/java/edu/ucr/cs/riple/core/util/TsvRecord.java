@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A record of a tsv file read by {@link TsvReader}. The record only keeps its offsets in the
+ * mapped file, fields are located and decoded only when they are requested. Records must not be
+ * kept after the file is read, the file may be rewritten by the next build.
+ */
+public class TsvRecord {
+
+  private final ByteBuffer buffer;
+  private final int start;
+  private final int end;
+  /** Offsets of the tabs separating fields, located on first access. */
+  private int[] tabs;
+
+  TsvRecord(ByteBuffer buffer, int start, int end) {
+    this.buffer = buffer;
+    this.start = start;
+    this.end = end;
+  }
+
+  /** Returns the number of fields. */
+  public int size() {
+    return tabs().length + 1;
+  }
+
+  /** Returns the field at the given index. */
+  public String get(int index) {
+    int[] tabs = tabs();
+    if (index < 0 || index > tabs.length) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return decode(begin(index), finish(index));
+  }
+
+  /** Returns all fields. */
+  public String[] toArray() {
+    String[] ans = new String[size()];
+    for (int i = 0; i < ans.length; i++) {
+      ans[i] = get(i);
+    }
+    return ans;
+  }
+
+  /**
+   * Returns all fields where fields from {@code from} (inclusive) to {@code to} (exclusive) are
+   * kept as one field together with the tabs between them.
+   */
+  public String[] toArray(int from, int to) {
+    int[] tabs = tabs();
+    if (from < 0 || to <= from || to > tabs.length + 1) {
+      throw new ArrayIndexOutOfBoundsException(to);
+    }
+    String[] ans = new String[tabs.length + 1 - (to - from - 1)];
+    for (int i = 0; i < from; i++) {
+      ans[i] = get(i);
+    }
+    ans[from] = decode(begin(from), finish(to - 1));
+    for (int i = to; i <= tabs.length; i++) {
+      ans[from + 1 + i - to] = get(i);
+    }
+    return ans;
+  }
+
+  /** Returns true if the record spans multiple lines. */
+  public boolean isMultiLine() {
+    for (int i = start; i < end; i++) {
+      if (buffer.get(i) == '\n') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the offset of the first byte of the field at the given index. */
+  private int begin(int index) {
+    return index == 0 ? start : tabs()[index - 1] + 1;
+  }
+
+  /** Returns the offset right after the last byte of the field at the given index. */
+  private int finish(int index) {
+    int[] tabs = tabs();
+    return index == tabs.length ? end : tabs[index];
+  }
+
+  private int[] tabs() {
+    if (tabs == null) {
+      int count = 0;
+      for (int i = start; i < end; i++) {
+        if (buffer.get(i) == '\t') {
+          count++;
+        }
+      }
+      int[] ans = new int[count];
+      for (int i = start, j = 0; j < count; i++) {
+        if (buffer.get(i) == '\t') {
+          ans[j++] = i;
+        }
+      }
+      tabs = ans;
+    }
+    return tabs;
+  }
+
+  private String decode(int from, int to) {
+    byte[] bytes = new byte[to - from];
+    ByteBuffer view = buffer.duplicate();
+    view.position(from);
+    view.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return decode(start, end);
+  }
+}
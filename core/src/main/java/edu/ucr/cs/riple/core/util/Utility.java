@@ -34,19 +34,28 @@ import edu.ucr.cs.riple.injector.Fix;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import me.tongfei.progressbar.ProgressBar;
 import me.tongfei.progressbar.ProgressBarStyle;
@@ -69,44 +78,177 @@ public class Utility {
     }
   }
 
-  @SuppressWarnings("ALL")
-  public static void writeReports(Path dir, List<Report> reports) {
-    JSONObject result = new JSONObject();
-    JSONArray reportsJson = new JSONArray();
-    for (Report report : reports) {
-      JSONObject reportJson = report.fix.getJson();
-      reportJson.put("effect", report.effectiveNess);
-      reportJson.put("finished", report.finished);
-      JSONArray followUps = new JSONArray();
-      if (report.effectiveNess < 1) {
-        report.followups.remove(report.fix);
-        followUps.addAll(
-            report.followups.stream().map(fix -> fix.getJson()).collect(Collectors.toList()));
-      }
-      reportJson.put("followups", followUps);
-      reportsJson.add(reportJson);
+  static JSONObject toJson(Report report) {
+    JSONObject reportJson = report.fix.getJson();
+    reportJson.put("effect", report.effectiveNess);
+    reportJson.put("finished", report.finished);
+    reportJson.put("explored", report.explored);
+    JSONArray followUps = new JSONArray();
+    if (report.effectiveNess < 1) {
+      report.followups.remove(report.fix);
+      followUps.addAll(
+          report.followups.stream().map(fix -> fix.getJson()).collect(Collectors.toList()));
     }
-    reportsJson.sort(
-        (o1, o2) -> {
-          int first = (Integer) ((JSONObject) o1).get("effect");
-          int second = (Integer) ((JSONObject) o2).get("effect");
-          if (first == second) {
-            return 0;
-          }
-          if (first < second) {
-            return 1;
+    reportJson.put("followups", followUps);
+    return reportJson;
+  }
+
+  /**
+   * Returns the json of the given report as it is read back from {@code diagnose_report.json},
+   * therefore it can be compared with reports read from files.
+   */
+  public static JSONObject toCanonicalJson(Report report) {
+    try {
+      return (JSONObject) new JSONParser().parse(toJson(report).toJSONString());
+    } catch (ParseException e) {
+      throw new RuntimeException("Could not serialize report: " + report, e);
+    }
+  }
+
+  /**
+   * Reads all reports stored in {@code reports.json} at the given directory. Each line of the file
+   * is either a single report or an object with a {@code reports} array.
+   */
+  public static List<JSONObject> readReportsCache(Path outDir) {
+    List<JSONObject> reports = new ArrayList<>();
+    if (!Files.exists(outDir.resolve("reports.json"))) {
+      return reports;
+    }
+    JSONParser parser = new JSONParser();
+    try (BufferedReader reader = Files.newBufferedReader(outDir.resolve("reports.json"))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        JSONObject json = (JSONObject) parser.parse(line);
+        if (json.containsKey("reports")) {
+          for (Object o : (JSONArray) json.get("reports")) {
+            reports.add((JSONObject) o);
           }
-          return -1;
-        });
-    result.put("reports", reportsJson);
+        } else {
+          reports.add(json);
+        }
+      }
+    } catch (Exception exception) {
+      throw new RuntimeException("Exception happened in reading cached reports", exception);
+    }
+    return reports;
+  }
+
+  /**
+   * Appends the given reports to {@code reports.json} at the given directory, one report per line.
+   * Reports already in the file are not rewritten.
+   */
+  public static void appendReportsCache(Path outDir, Collection<JSONObject> reports) {
+    if (reports.isEmpty()) {
+      return;
+    }
+    Path path = outDir.resolve("reports.json");
+    StringBuilder lines = new StringBuilder();
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      // Files written at once (e.g. by the runner) may not end with a line break.
+      if (file.length() > 0) {
+        file.seek(file.length() - 1);
+        if (file.read() != '\n') {
+          lines.append("\n");
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not open cached reports at: " + path, e);
+    }
+    for (JSONObject report : reports) {
+      lines.append(report.toJSONString().replace("\\/", "/")).append("\n");
+    }
+    try (FileWriter writer = new FileWriter(path.toFile(), true)) {
+      writer.write(lines.toString());
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write cached reports at: " + path, e);
+    }
+  }
+
+  /** Returns the SHA-256 hash of the content of the given file, empty if it does not exist. */
+  public static String hash(Path path) {
+    if (!Files.exists(path)) {
+      return "";
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(path));
+      StringBuilder ans = new StringBuilder();
+      for (byte b : digest) {
+        ans.append(String.format("%02x", b));
+      }
+      return ans.toString();
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new RuntimeException("Could not compute hash of: " + path, e);
+    }
+  }
+
+  /**
+   * Copies the content of a directory recursively.
+   *
+   * @param source Directory to copy.
+   * @param target Destination directory.
+   * @param excludes Paths which should not be copied, can be directories.
+   */
+  public static void copyDirectory(Path source, Path target, Set<Path> excludes) {
     try {
-      FileWriter writer = new FileWriter(dir.resolve("diagnose_report.json").toFile());
-      writer.write(result.toJSONString().replace("\\/", "/").replace("\\\\\\", "\\"));
-      writer.flush();
+      Files.walkFileTree(
+          source,
+          new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                throws IOException {
+              if (excludes.contains(dir)) {
+                return FileVisitResult.SKIP_SUBTREE;
+              }
+              Files.createDirectories(target.resolve(source.relativize(dir)));
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                throws IOException {
+              if (!excludes.contains(file)) {
+                Files.copy(
+                    file,
+                    target.resolve(source.relativize(file)),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.COPY_ATTRIBUTES);
+              }
+              return FileVisitResult.CONTINUE;
+            }
+          });
+    } catch (IOException e) {
+      throw new RuntimeException("Could not copy directory " + source + " to " + target, e);
+    }
+  }
+
+  /** Deletes the given directory with all its content, if exists. */
+  public static void deleteDirectory(Path dir) {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    try {
+      Files.walkFileTree(
+          dir,
+          new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                throws IOException {
+              Files.delete(file);
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc)
+                throws IOException {
+              Files.delete(dir);
+              return FileVisitResult.CONTINUE;
+            }
+          });
     } catch (IOException e) {
-      throw new RuntimeException(
-          "Could not create the Annotator report json file: " + dir.resolve("diagnose_report.json"),
-          e);
+      throw new RuntimeException("Could not delete directory: " + dir, e);
     }
   }
 
@@ -124,50 +266,41 @@ public class Utility {
   }
 
   public static List<Fix> readAllFixes(Path path) {
-    List<Fix> fixes = new ArrayList<>();
+    Map<Fix, Fix> fixes = new LinkedHashMap<>();
     try {
-      try (BufferedReader br = new BufferedReader(new FileReader(path.toFile()))) {
-        String line;
-        br.readLine();
-        while ((line = br.readLine()) != null) {
-          Fix fix = Fix.fromCSVLine(line, "\t");
-          Optional<Fix> existing = fixes.stream().filter(other -> other.equals(fix)).findAny();
-          if (existing.isPresent()) {
-            existing.get().referred++;
-          } else {
-            fix.referred = 1;
-            fixes.add(fix);
-          }
+      TsvReader reader = new TsvReader(path, false);
+      for (Fix fix : reader.map(record -> Fix.fromArrayInfo(record.toArray()))) {
+        Fix existing = fixes.putIfAbsent(fix, fix);
+        if (existing != null) {
+          existing.referred++;
+        } else {
+          fix.referred = 1;
         }
       }
     } catch (IOException e) {
       throw new RuntimeException("Exception happened in reading fixes at: " + path, e);
     }
-    return fixes;
+    return new ArrayList<>(fixes.values());
   }
 
-  public static void removeCachedFixes(List<Fix> fixes, Path outDir) {
-    if (!Files.exists(outDir.resolve("reports.json"))) {
-      return;
-    }
-    try {
-      JSONObject cachedObjects =
-          (JSONObject)
-              new JSONParser().parse(new FileReader(outDir.resolve("reports.json").toFile()));
-      JSONArray cachedJson = (JSONArray) cachedObjects.get("reports");
-      List<Fix> cached = new ArrayList<>();
-      for (Object o : cachedJson) {
-        JSONObject reportJson = (JSONObject) o;
-        if (Integer.parseInt(reportJson.get("effect").toString()) > 0) {
-          cached.add(Fix.createFromJson(reportJson));
-        }
-      }
-      System.out.print("Cached items size: " + cached.size() + " total fix size: " + fixes.size());
-      fixes.removeAll(cached);
-    } catch (Exception exception) {
-      throw new RuntimeException("Exception happened in removing cached fixes", exception);
-    }
-    System.out.println(". Reduced down to: " + fixes.size());
+  /**
+   * Creates the fix serialized with {@link Fix#getJson()}. Unlike {@link
+   * Fix#createFromJson(JSONObject)}, the uri is kept as serialized, therefore the fix can be
+   * injected.
+   */
+  public static Fix fixFromJson(JSONObject json) {
+    Fix fix = Fix.createFromJson(json);
+    fix.uri = json.get("uri").toString();
+    return fix;
+  }
+
+  /** Returns fixes reported as ineffective in {@code reports.json} at the given directory. */
+  public static List<Fix> readCachedFixes(Path outDir) {
+    return readReportsCache(outDir)
+        .stream()
+        .filter(reportJson -> Integer.parseInt(reportJson.get("effect").toString()) > 0)
+        .map(Fix::createFromJson)
+        .collect(Collectors.toList());
   }
 
   public static List<Fix> readFixesJson(Path filePath) {
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.workers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the wall time and the number of builds spent on exploration. Builds are reserved before
+ * they start, a build is refused if its predicted cost exceeds the remaining time or no build is
+ * left. Fixes of refused builds are reported as unexplored.
+ */
+public class Budget {
+
+  /** Time at which the budget runs out in milliseconds, {@code 0} if time is not limited. */
+  private final long deadline;
+  /** Maximum number of builds, {@code 0} if the number of builds is not limited. */
+  private final int maxBuilds;
+
+  private final AtomicInteger builds;
+  private volatile boolean exhausted;
+
+  /**
+   * Creates a budget starting at the time of the call.
+   *
+   * @param seconds Wall time of the budget in seconds, {@code 0} for no limit.
+   * @param maxBuilds Maximum number of builds, {@code 0} for no limit.
+   */
+  public Budget(long seconds, int maxBuilds) {
+    this.deadline = seconds > 0 ? System.currentTimeMillis() + seconds * 1000 : 0;
+    this.maxBuilds = maxBuilds;
+    this.builds = new AtomicInteger();
+    this.exhausted = false;
+  }
+
+  /** Returns {@code true} if time or the number of builds is limited. */
+  public boolean isLimited() {
+    return deadline > 0 || maxBuilds > 0;
+  }
+
+  /**
+   * Reserves a build.
+   *
+   * @param cost Predicted cost of the build in milliseconds.
+   * @return {@code true} if the build fits in the remaining budget.
+   */
+  public boolean reserve(double cost) {
+    if (deadline > 0 && System.currentTimeMillis() + cost > deadline) {
+      exhausted = true;
+      return false;
+    }
+    if (maxBuilds > 0 && builds.incrementAndGet() > maxBuilds) {
+      exhausted = true;
+      return false;
+    }
+    return true;
+  }
+
+  /** Returns {@code true} if any build has been refused. */
+  public boolean isExhausted() {
+    return exhausted;
+  }
+}
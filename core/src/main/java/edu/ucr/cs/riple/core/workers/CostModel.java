@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.workers;
+
+import edu.ucr.cs.riple.injector.Fix;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Predicts the time a worker spends on a group of fixes (injection and build) with a linear model
+ * over features of the group: number of fixes, number of touched files and the total size of the
+ * touched files. The model is fitted by least squares over all recorded builds.
+ */
+public class CostModel {
+
+  /** Features are: constant term, number of fixes, number of files, size of files in KB. */
+  private static final int FEATURES = 4;
+  /** Regularization factor, keeps the system solvable with few or similar samples. */
+  private static final double LAMBDA = 1e-3;
+
+  /** Sum of outer products of recorded feature vectors. */
+  private final double[][] xtx = new double[FEATURES][FEATURES];
+  /** Sum of recorded feature vectors scaled by their cost. */
+  private final double[] xty = new double[FEATURES];
+
+  private int samples;
+  /** Coefficients of the latest fit, {@code null} if outdated. */
+  private double[] coefficients;
+
+  /** Computes features of the given fixes. */
+  public static double[] features(Collection<Fix> fixes) {
+    Set<Path> files = new HashSet<>();
+    for (Fix fix : fixes) {
+      String uri = fix.uri;
+      if (uri.startsWith("file:")) {
+        uri = uri.substring("file:".length());
+      }
+      files.add(Paths.get(uri));
+    }
+    double size = 0;
+    for (Path file : files) {
+      try {
+        size += Files.exists(file) ? Files.size(file) / 1024.0 : 0;
+      } catch (IOException ignored) {
+        // Size is only an estimate.
+      }
+    }
+    return new double[] {1, fixes.size(), files.size(), size};
+  }
+
+  /** Records the cost of a build in milliseconds with the given features. */
+  public synchronized void record(double[] features, long cost) {
+    for (int i = 0; i < FEATURES; i++) {
+      for (int j = 0; j < FEATURES; j++) {
+        xtx[i][j] += features[i] * features[j];
+      }
+      xty[i] += features[i] * cost;
+    }
+    samples++;
+    coefficients = null;
+  }
+
+  /**
+   * Predicts the cost of a group with the given features. Until enough builds are recorded, the
+   * number of touched files is used as the cost.
+   */
+  public synchronized double predict(double[] features) {
+    if (samples < FEATURES) {
+      return features[2];
+    }
+    if (coefficients == null) {
+      coefficients = solve();
+    }
+    double ans = 0;
+    for (int i = 0; i < FEATURES; i++) {
+      ans += coefficients[i] * features[i];
+    }
+    return Math.max(ans, 0);
+  }
+
+  /** Solves the regularized normal equations with gaussian elimination. */
+  private double[] solve() {
+    double[][] a = new double[FEATURES][FEATURES + 1];
+    for (int i = 0; i < FEATURES; i++) {
+      System.arraycopy(xtx[i], 0, a[i], 0, FEATURES);
+      a[i][i] += LAMBDA * samples;
+      a[i][FEATURES] = xty[i];
+    }
+    for (int col = 0; col < FEATURES; col++) {
+      int pivot = col;
+      for (int row = col + 1; row < FEATURES; row++) {
+        if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+          pivot = row;
+        }
+      }
+      double[] tmp = a[col];
+      a[col] = a[pivot];
+      a[pivot] = tmp;
+      for (int row = col + 1; row < FEATURES; row++) {
+        double factor = a[row][col] / a[col][col];
+        for (int k = col; k <= FEATURES; k++) {
+          a[row][k] -= factor * a[col][k];
+        }
+      }
+    }
+    double[] ans = new double[FEATURES];
+    for (int row = FEATURES - 1; row >= 0; row--) {
+      double sum = a[row][FEATURES];
+      for (int k = row + 1; k < FEATURES; k++) {
+        sum -= a[row][k] * ans[k];
+      }
+      ans[row] = sum / a[row][row];
+    }
+    return ans;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.workers;
+
+import edu.ucr.cs.riple.core.util.Utility;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Directory holding modified copies of source files of the target project (mirroring their
+ * absolute path), the original files are never modified by the injector. Rolling back injected
+ * fixes is done by discarding the modified copies.
+ *
+ * <p>Build engines which cannot read the copies directly (e.g. a build command) materialize the
+ * overlay for the duration of the build: originals are backed up and replaced with their copies
+ * and restored right after the build. Backups left from an interrupted build are restored once the
+ * overlay is created.
+ */
+public class Overlay {
+
+  /** Directory where modified copies are written by the injector. */
+  public final Path dir;
+  /** Directory where original files are backed up while the overlay is materialized. */
+  private final Path backup;
+
+  public Overlay(Path dir) {
+    this.dir = dir.toAbsolutePath();
+    this.backup = this.dir.resolveSibling(this.dir.getFileName() + "-backup");
+    restore();
+    Utility.deleteDirectory(this.dir);
+  }
+
+  /** Returns the location of the modified copy of the given file in this overlay. */
+  public Path locate(Path original) {
+    Path path = original.toAbsolutePath();
+    return dir.resolve(path.getRoot().relativize(path));
+  }
+
+  /** Returns the modified copy of the given file if exists, otherwise the file itself. */
+  public File resolve(File file) {
+    Path copy = locate(file.toPath());
+    return Files.exists(copy) ? copy.toFile() : file;
+  }
+
+  /** Returns the original file of the given modified copy, otherwise the file itself. */
+  public File original(File file) {
+    Path path = file.toPath().toAbsolutePath();
+    if (!path.startsWith(dir)) {
+      return file;
+    }
+    return path.getRoot().resolve(dir.relativize(path)).toFile();
+  }
+
+  /** Discards modified copies of the given files. */
+  public void discard(Collection<Path> originals) {
+    for (Path original : originals) {
+      try {
+        Files.deleteIfExists(locate(original));
+      } catch (IOException e) {
+        throw new RuntimeException("Could not discard overlay copy of: " + original, e);
+      }
+    }
+  }
+
+  /**
+   * Moves all modified copies of the given overlay into this overlay, replacing existing copies of
+   * the same files. The given overlay is empty afterwards.
+   */
+  public void promote(Overlay staged) {
+    for (Path copy : listFiles(staged.dir)) {
+      Path target = dir.resolve(staged.dir.relativize(copy));
+      try {
+        Files.createDirectories(target.getParent());
+        Files.move(copy, target, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not promote staged copy at: " + copy, e);
+      }
+    }
+  }
+
+  /** Replaces original files with their modified copies, originals are backed up. */
+  public void materialize() {
+    for (Path copy : listFiles(dir)) {
+      Path relative = dir.relativize(copy);
+      Path original = copy.getRoot().resolve(relative);
+      Path saved = backup.resolve(relative);
+      try {
+        Files.createDirectories(saved.getParent());
+        Files.copy(original, saved, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(copy, original, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        restore();
+        throw new RuntimeException("Could not materialize overlay copy of: " + original, e);
+      }
+    }
+  }
+
+  /** Restores all original files replaced in {@link #materialize()}. */
+  public void restore() {
+    for (Path saved : listFiles(backup)) {
+      Path original = saved.getRoot().resolve(backup.relativize(saved));
+      try {
+        Files.copy(saved, original, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not restore original file at: " + original, e);
+      }
+    }
+    Utility.deleteDirectory(backup);
+  }
+
+  private static List<Path> listFiles(Path root) {
+    if (!Files.exists(root)) {
+      return Collections.emptyList();
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new RuntimeException("Could not list files at: " + root, e);
+    }
+  }
+}
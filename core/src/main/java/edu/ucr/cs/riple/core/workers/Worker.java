@@ -0,0 +1,356 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.workers;
+
+import com.google.common.base.Preconditions;
+import com.uber.nullaway.fixserialization.FixSerializationConfig;
+import edu.ucr.cs.riple.core.Annotator;
+import edu.ucr.cs.riple.core.cache.BuildCache;
+import edu.ucr.cs.riple.core.cache.Journal;
+import edu.ucr.cs.riple.core.engine.BuildEngine;
+import edu.ucr.cs.riple.core.metadata.index.Bank;
+import edu.ucr.cs.riple.core.metadata.index.Error;
+import edu.ucr.cs.riple.core.metadata.index.FixEntity;
+import edu.ucr.cs.riple.injector.Fix;
+import edu.ucr.cs.riple.injector.Injector;
+import edu.ucr.cs.riple.injector.WorkListBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Workspace of the target project where fixes can be injected and the project can be built
+ * independently of other workers. Each worker has its own NullAway config, output directory and
+ * state of {@link Bank}s. Worker with id {@code 0} operates on the original project, all other
+ * workers operate on a copy of it where all paths are relocated. If an {@link Overlay} is given,
+ * fixes are injected into the overlay and the source files of the worker are never modified.
+ */
+public class Worker {
+
+  public final int id;
+  /** Output directory of NullAway in builds of this worker. */
+  public final Path dir;
+  /** Path to NullAway config read in builds of this worker. */
+  private final Path configPath;
+  /** Original paths mapped to their relocated path for this worker. */
+  private final List<Map.Entry<String, String>> relocations;
+  /** Relocated paths mapped to their original path. */
+  private final List<Map.Entry<String, String>> inverseRelocations;
+
+  private final Injector injector;
+  /** Overlay where fixes are injected, {@code null} if fixes are injected in place. */
+  private final Overlay overlay;
+  /** Overlay where fixes are staged while a build is running, created on first use. */
+  private Overlay staging;
+  /** Fixes injected into {@link #staging}. */
+  private final List<Fix> stagedFixes;
+
+  private final Set<Fix> injectedFixes;
+  /** Time spent on injecting and removing fixes since the latest build. */
+  private long injectionTime;
+  private BuildEngine engine;
+  /** Cache of build outputs, {@code null} if builds are not cached. */
+  private BuildCache cache;
+  /** Journal of fixes injected into the source files, {@code null} if not journaled. */
+  private Journal journal;
+  public Bank<Error> errorBank;
+  public Bank<FixEntity> fixBank;
+
+  public Worker(
+      int id,
+      Path dir,
+      Path configPath,
+      Injector injector,
+      Overlay overlay,
+      Map<String, String> relocations) {
+    this.id = id;
+    this.dir = dir;
+    this.configPath = configPath;
+    this.injector = injector;
+    this.overlay = overlay;
+    this.injectedFixes = new HashSet<>();
+    this.stagedFixes = new ArrayList<>();
+    this.relocations = new ArrayList<>(relocations.entrySet());
+    this.inverseRelocations =
+        relocations
+            .entrySet()
+            .stream()
+            .map(entry -> new AbstractMap.SimpleEntry<>(entry.getValue(), entry.getKey()))
+            .collect(Collectors.toList());
+    // Longer paths are matched first, as they might contain the shorter ones.
+    this.relocations.sort((o1, o2) -> o2.getKey().length() - o1.getKey().length());
+    this.inverseRelocations.sort((o1, o2) -> o2.getKey().length() - o1.getKey().length());
+  }
+
+  public void setCache(BuildCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Sets the journal where fixes are recorded before they are injected into the source files and
+   * once they are removed. Only required for the worker operating on the original project without
+   * an overlay, all other workspaces are recreated on each run.
+   */
+  public void setJournal(Journal journal) {
+    this.journal = journal;
+  }
+
+  public void setEngine(BuildEngine engine) {
+    this.engine = engine;
+    this.engine.setOverlay(overlay);
+  }
+
+  /**
+   * Replaces all occurrences of the original paths in the given text with their relocated path for
+   * this worker.
+   */
+  public String relocate(String text) {
+    return replace(text, relocations);
+  }
+
+  /** Inverse of {@link #relocate(String)}. */
+  public String unrelocate(String text) {
+    return replace(text, inverseRelocations);
+  }
+
+  private static String replace(String text, List<Map.Entry<String, String>> relocations) {
+    if (relocations.isEmpty() || text == null) {
+      return text;
+    }
+    StringBuilder ans = new StringBuilder();
+    int index = 0;
+    outer:
+    while (index < text.length()) {
+      for (Map.Entry<String, String> relocation : relocations) {
+        if (text.startsWith(relocation.getKey(), index)) {
+          ans.append(relocation.getValue());
+          index += relocation.getKey().length();
+          continue outer;
+        }
+      }
+      ans.append(text.charAt(index++));
+    }
+    return ans.toString();
+  }
+
+  private Fix relocate(Fix fix) {
+    if (relocations.isEmpty()) {
+      return fix;
+    }
+    Fix relocated = fix.duplicate();
+    relocated.uri = relocate(fix.uri);
+    return relocated;
+  }
+
+  public void apply(List<Fix> fixes) {
+    if (fixes == null || fixes.size() == 0) {
+      return;
+    }
+    if (journal != null && overlay == null) {
+      journal.recordInjected(fixes);
+    }
+    inject(fixes);
+  }
+
+  private void inject(List<Fix> fixes) {
+    long start = System.currentTimeMillis();
+    List<Fix> relocated = fixes.stream().map(this::relocate).collect(Collectors.toList());
+    injector.start(new WorkListBuilder(relocated).getWorkLists(), false);
+    injectionTime += System.currentTimeMillis() - start;
+    fixes.forEach(
+        fix -> {
+          if (Boolean.parseBoolean(fix.inject)) {
+            injectedFixes.add(fix);
+          } else {
+            injectedFixes.remove(fix);
+          }
+        });
+  }
+
+  public void remove(List<Fix> fixes) {
+    if (fixes == null || fixes.size() == 0) {
+      return;
+    }
+    if (overlay != null) {
+      discard(fixes);
+      return;
+    }
+    List<Fix> toRemove =
+        fixes
+            .stream()
+            .map(
+                fix ->
+                    new Fix(
+                        fix.annotation,
+                        fix.method,
+                        fix.param,
+                        fix.location,
+                        fix.className,
+                        fix.uri,
+                        "false"))
+            .collect(Collectors.toList());
+    inject(toRemove);
+    if (journal != null) {
+      journal.recordRemoved(fixes);
+    }
+  }
+
+  /**
+   * Removes the given fixes by discarding the overlay copies of their files. Other fixes injected
+   * in the same files are injected again.
+   */
+  private void discard(List<Fix> fixes) {
+    Set<Path> files = fixes.stream().map(this::pathOf).collect(Collectors.toSet());
+    fixes.forEach(injectedFixes::remove);
+    long start = System.currentTimeMillis();
+    overlay.discard(files);
+    injectionTime += System.currentTimeMillis() - start;
+    apply(
+        injectedFixes
+            .stream()
+            .filter(fix -> files.contains(pathOf(fix)))
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Injects the given fixes into the staging area of this worker. Source files of the project and
+   * the overlay are not touched, therefore staging can run while the project is being built. Staged
+   * fixes are injected with {@link #promote()}. Requires an overlay.
+   */
+  public void stage(List<Fix> fixes) {
+    Preconditions.checkNotNull(overlay, "Staging fixes requires an overlay.");
+    if (staging == null) {
+      staging = new Overlay(overlay.dir.resolveSibling(overlay.dir.getFileName() + "-staging"));
+    }
+    List<Fix> relocated = fixes.stream().map(this::relocate).collect(Collectors.toList());
+    new Injector(injector.mode, injector.KEEP, staging.dir)
+        .start(new WorkListBuilder(relocated).getWorkLists(), false);
+    stagedFixes.addAll(fixes);
+  }
+
+  /**
+   * Injects the fixes staged by {@link #stage(List)} by moving their copies into the overlay.
+   * Staged copies are made from the original files, therefore fixes staged in files which have a
+   * modified copy in the overlay must be removed beforehand.
+   */
+  public void promote() {
+    long start = System.currentTimeMillis();
+    overlay.promote(staging);
+    injectionTime += System.currentTimeMillis() - start;
+    stagedFixes.forEach(
+        fix -> {
+          if (Boolean.parseBoolean(fix.inject)) {
+            injectedFixes.add(fix);
+          }
+        });
+    stagedFixes.clear();
+  }
+
+  /** Returns the path to the source file of the given fix in this worker's project. */
+  private Path pathOf(Fix fix) {
+    String uri = relocate(fix.uri);
+    if (uri.startsWith("file:")) {
+      uri = uri.substring("file:".length());
+    }
+    return Paths.get(uri).toAbsolutePath();
+  }
+
+  /**
+   * Injects the given fixes permanently into the source files of this worker (not into the
+   * overlay), the build engine is notified that the source code has changed.
+   */
+  public void commit(List<Fix> fixes) {
+    if (fixes.isEmpty()) {
+      return;
+    }
+    List<Fix> relocated = fixes.stream().map(this::relocate).collect(Collectors.toList());
+    new Injector(injector.mode, injector.KEEP)
+        .start(new WorkListBuilder(relocated).getWorkLists(), id == 0);
+    engine.reset();
+  }
+
+  /** Returns fixes which are currently injected to the source code of this worker. */
+  public Set<Fix> getInjectedFixes() {
+    return Collections.unmodifiableSet(injectedFixes);
+  }
+
+  /**
+   * Builds the project of this worker, outputs are serialized at {@link #dir}.
+   *
+   * @param config Config to write for NullAway, output directory is overwritten by this worker.
+   */
+  public void build(FixSerializationConfig.Builder config) {
+    config.setOutputDirectory(dir.toString());
+    config.writeAsXML(configPath.toString());
+    // The initial build without any fix is not cached, it is the baseline of all keys.
+    String key = cache == null || injectedFixes.isEmpty() ? null : computeCacheKey();
+    if (key != null && cache.load(key, dir, this::relocate)) {
+      setScope(null);
+      return;
+    }
+    long start = System.currentTimeMillis();
+    engine.build();
+    Annotator.log.recordBuild(
+        CostModel.features(injectedFixes), injectionTime, System.currentTimeMillis() - start);
+    injectionTime = 0;
+    Predicate<String> checked = engine.getCheckedClasses();
+    // Outputs of partial builds are incomplete and not cached.
+    if (key != null && checked == null) {
+      cache.store(key, dir, this::unrelocate);
+    }
+    setScope(checked);
+  }
+
+  private void setScope(Predicate<String> checked) {
+    if (errorBank != null) {
+      errorBank.setScope(checked);
+      fixBank.setScope(checked);
+    }
+  }
+
+  private String computeCacheKey() {
+    String content;
+    try {
+      content = new String(Files.readAllBytes(configPath), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read NullAway config at: " + configPath, e);
+    }
+    // Config and source files are compared independent of this worker's workspace.
+    content = content.replace(dir.toString(), "");
+    Set<Path> files = injectedFixes.stream().map(this::pathOf).collect(Collectors.toSet());
+    return cache.key(injectedFixes, files, content);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.workers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pool of {@link Worker}s. Tasks are distributed among idle workers and each worker processes one
+ * task at a time, therefore tasks running concurrently never share a workspace.
+ */
+public class WorkerPool {
+
+  private final List<Worker> workers;
+  private final LinkedBlockingQueue<Worker> idle;
+  private final ExecutorService executor;
+
+  public WorkerPool(List<Worker> workers) {
+    this.workers = workers;
+    this.idle = new LinkedBlockingQueue<>(workers);
+    this.executor =
+        workers.size() > 1
+            ? Executors.newFixedThreadPool(
+                workers.size(),
+                runnable -> {
+                  Thread thread = new Thread(runnable);
+                  thread.setDaemon(true);
+                  return thread;
+                })
+            : null;
+  }
+
+  public int size() {
+    return workers.size();
+  }
+
+  public List<Worker> getWorkers() {
+    return Collections.unmodifiableList(workers);
+  }
+
+  /**
+   * Runs the given action for all tasks in descending order of their predicted cost, and waits
+   * until all tasks are processed. Processing the most expensive tasks first keeps the workers
+   * balanced, as the cheap tasks left at the end fill the gaps.
+   *
+   * @param tasks Tasks to process.
+   * @param cost Predicted cost of a task.
+   * @param action Action to run on a task with the worker assigned to it.
+   * @param <T> Type of tasks.
+   */
+  public <T> void run(Collection<T> tasks, ToDoubleFunction<T> cost, BiConsumer<Worker, T> action) {
+    if (executor == null) {
+      // Order does not change the total time of a single worker.
+      run(tasks, action);
+      return;
+    }
+    Map<T, Double> costs = new IdentityHashMap<>();
+    tasks.forEach(task -> costs.put(task, cost.applyAsDouble(task)));
+    List<T> ordered = new ArrayList<>(tasks);
+    ordered.sort(Comparator.comparingDouble((T task) -> costs.get(task)).reversed());
+    run(ordered, action);
+  }
+
+  /**
+   * Runs the given action for all tasks, and waits until all tasks are processed.
+   *
+   * @param tasks Tasks to process.
+   * @param action Action to run on a task with the worker assigned to it.
+   * @param <T> Type of tasks.
+   */
+  public <T> void run(Collection<T> tasks, BiConsumer<Worker, T> action) {
+    if (executor == null) {
+      Worker worker = workers.get(0);
+      tasks.forEach(task -> action.accept(worker, task));
+      return;
+    }
+    List<Future<?>> futures = new ArrayList<>();
+    for (T task : tasks) {
+      futures.add(
+          executor.submit(
+              () -> {
+                Worker worker = idle.take();
+                try {
+                  action.accept(worker, task);
+                } finally {
+                  idle.put(worker);
+                }
+                return null;
+              }));
+    }
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = new RuntimeException("Exception happened in worker", e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for workers", e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
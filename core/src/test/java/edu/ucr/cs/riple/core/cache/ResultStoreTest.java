@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import edu.ucr.cs.riple.core.Report;
+import edu.ucr.cs.riple.core.util.Utility;
+import edu.ucr.cs.riple.injector.Fix;
+import edu.ucr.cs.riple.injector.WorkListBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ResultStoreTest {
+
+  private static final Set<String> CLASSES = Collections.singleton("a.C");
+
+  private Path dir;
+  private Path source;
+
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("store");
+    source = dir.resolve("src").resolve("a").resolve("C.java");
+    Files.createDirectories(source.getParent());
+    write("package a; public class C { Object m() { return null; } }");
+  }
+
+  @After
+  public void cleanup() {
+    Utility.deleteDirectory(dir);
+  }
+
+  @Test
+  public void lookup_after_injection() {
+    ResultStore store = new ResultStore(dir.resolve("store.tsv"), "settings");
+    Fix injected = createFix();
+    store.refresh(Collections.singletonList(injected));
+    store.put(new Report(injected, -2), CLASSES);
+    // The injector strips the scheme of the uri of the stored fix.
+    new WorkListBuilder(Collections.singletonList(injected)).getWorkLists();
+    assertTrue(!injected.uri.startsWith("file:"));
+    Report report = store.lookup(createFix(), CLASSES);
+    assertEquals(-2, report.effectiveNess);
+  }
+
+  @Test
+  public void lookup_in_next_run() {
+    Path path = dir.resolve("store.tsv");
+    ResultStore store = new ResultStore(path, "settings");
+    Fix injected = createFix();
+    store.refresh(Collections.singletonList(injected));
+    new WorkListBuilder(Collections.singletonList(injected)).getWorkLists();
+    store.put(new Report(injected, 1), CLASSES);
+    store.save();
+    ResultStore next = new ResultStore(path, "settings");
+    next.refresh(Collections.singletonList(createFix()));
+    assertEquals(1, next.lookup(createFix(), CLASSES).effectiveNess);
+  }
+
+  @Test
+  public void changed_source_is_not_reused() throws IOException {
+    ResultStore store = new ResultStore(dir.resolve("store.tsv"), "settings");
+    store.refresh(Collections.singletonList(createFix()));
+    store.put(new Report(createFix(), -1), CLASSES);
+    write("package a; public class C { Object m() { return new Object(); } }");
+    store.refresh(Collections.singletonList(createFix()));
+    assertNull(store.lookup(createFix(), CLASSES));
+  }
+
+  private Fix createFix() {
+    return new Fix(
+        "javax.annotation.Nullable", "m()", "", "METHOD", "a.C", "file:" + source, "true");
+  }
+
+  private void write(String content) throws IOException {
+    Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
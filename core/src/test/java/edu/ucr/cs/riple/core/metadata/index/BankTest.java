@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.metadata.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import edu.ucr.cs.riple.core.metadata.trackers.Region;
+import edu.ucr.cs.riple.core.util.Utility;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BankTest {
+
+  private static final String HEADER = "MESSAGE_TYPE\tMESSAGE\tCLASS\tMETHOD";
+
+  private static final Error FIRST = new Error("DEREFERENCE", "first", "a.C", "m()");
+  private static final Error SECOND = new Error("RETURN", "second", "a.C", "m()");
+  private static final Error OTHER = new Error("DEREFERENCE", "other", "a.D", "k()");
+  private static final Region REGION = new Region("m()", "a.C");
+  private static final Region OTHER_REGION = new Region("k()", "a.D");
+
+  private Path dir;
+  private Path path;
+
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("bank");
+    path = dir.resolve("errors.tsv");
+  }
+
+  @After
+  public void cleanup() {
+    Utility.deleteDirectory(dir);
+  }
+
+  @Test
+  public void duplicate_errors_decreased() throws IOException {
+    Bank<Error> bank = createBank(FIRST, FIRST);
+    saveState(bank, FIRST);
+    assertResult(bank.compareByRegion(REGION), -1, new Error[] {}, new Error[] {FIRST});
+  }
+
+  @Test
+  public void duplicate_errors_increased() throws IOException {
+    Bank<Error> bank = createBank(FIRST);
+    saveState(bank, FIRST, FIRST);
+    assertResult(bank.compareByRegion(REGION), 1, new Error[] {FIRST}, new Error[] {});
+  }
+
+  @Test
+  public void removed_entries() throws IOException {
+    Bank<Error> bank = createBank(FIRST, SECOND, OTHER);
+    saveState(bank, SECOND, OTHER);
+    assertResult(bank.compareByRegion(REGION), -1, new Error[] {}, new Error[] {FIRST});
+    assertResult(bank.compareByRegion(OTHER_REGION), 0, new Error[] {}, new Error[] {});
+  }
+
+  @Test
+  public void replaced_entries() throws IOException {
+    Bank<Error> bank = createBank(FIRST);
+    saveState(bank, SECOND);
+    assertResult(bank.compareByRegion(REGION), 0, new Error[] {SECOND}, new Error[] {FIRST});
+  }
+
+  @Test
+  public void region_only_in_previous_state() throws IOException {
+    Bank<Error> bank = createBank(FIRST, OTHER);
+    saveState(bank, FIRST);
+    assertResult(bank.compareByRegion(OTHER_REGION), -1, new Error[] {}, new Error[] {OTHER});
+    assertResult(
+        bank.compareByMethod("a.D", "k()", false), -1, new Error[] {}, new Error[] {OTHER});
+  }
+
+  @Test
+  public void region_only_in_current_state() throws IOException {
+    Bank<Error> bank = createBank(FIRST);
+    write(FIRST, OTHER, OTHER);
+    assertResult(
+        bank.compareByMethod("a.D", "k()", true), 2, new Error[] {OTHER, OTHER}, new Error[] {});
+    assertResult(bank.compareByRegion(REGION), 0, new Error[] {}, new Error[] {});
+    assertEquals(2, bank.compare());
+  }
+
+  @Test
+  public void queried_regions_only() throws IOException {
+    Bank<Error> bank = createBank(FIRST, OTHER);
+    write(OTHER, OTHER);
+    bank.saveState(new HashSet<>(Arrays.asList(REGION, OTHER_REGION)));
+    assertResult(bank.compareByRegion(REGION), -1, new Error[] {}, new Error[] {FIRST});
+    assertResult(bank.compareByRegion(OTHER_REGION), 1, new Error[] {OTHER}, new Error[] {});
+    bank.saveState(Collections.singleton(REGION));
+    try {
+      bank.compareByRegion(OTHER_REGION);
+      fail("Regions which are not indexed must not be compared");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().contains("not indexed"));
+    }
+  }
+
+  private Bank<Error> createBank(Error... errors) throws IOException {
+    write(errors);
+    return new Bank<>(path, Error::new);
+  }
+
+  private void saveState(Bank<Error> bank, Error... errors) throws IOException {
+    write(errors);
+    bank.saveState();
+  }
+
+  private void write(Error... errors) throws IOException {
+    StringBuilder content = new StringBuilder(HEADER).append("\n");
+    for (Error error : errors) {
+      content.append(
+          String.join("\t", error.messageType, error.message, error.clazz, error.method));
+      content.append("\n");
+    }
+    Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void assertResult(
+      Result<Error> result, int size, Error[] added, Error[] removed) {
+    assertEquals(size, result.size);
+    assertEquals(Arrays.asList(added), result.dif);
+    assertEquals(Arrays.asList(removed), result.removed);
+  }
+}
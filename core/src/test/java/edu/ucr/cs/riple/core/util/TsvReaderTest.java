@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Nima Karimipour
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package edu.ucr.cs.riple.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.ucr.cs.riple.core.metadata.index.Error;
+import edu.ucr.cs.riple.core.metadata.index.Index;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TsvReaderTest {
+
+  private static final String HEADER = "MESSAGE_TYPE\tMESSAGE\tCLASS\tMETHOD\n";
+
+  private Path dir;
+
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("tsv");
+  }
+
+  @After
+  public void cleanup() {
+    Utility.deleteDirectory(dir);
+  }
+
+  @Test
+  public void single_line_records() throws IOException {
+    List<TsvRecord> records = read(HEADER + "A\tfirst\tC\tm()\nB\tsecond\tC\tn()\n", false);
+    assertEquals(2, records.size());
+    assertArrayEquals(new String[] {"A", "first", "C", "m()"}, records.get(0).toArray());
+    assertEquals("second", records.get(1).get(1));
+    assertFalse(records.get(1).isMultiLine());
+  }
+
+  @Test
+  public void multi_line_records() throws IOException {
+    Path path =
+        write(
+            HEADER
+                + "A\tfirst line\n    second line\n\tthird line\tC\tm()\n"
+                + "B\tsecond\tC\tn()\n");
+    List<TsvRecord> records = new ArrayList<>();
+    new TsvReader(path, true).forEach(records::add);
+    assertEquals(2, records.size());
+    TsvRecord first = records.get(0);
+    assertTrue(first.isMultiLine());
+    assertEquals("A", first.get(0));
+    assertEquals("m()", first.get(first.size() - 1));
+    assertArrayEquals(
+        new String[] {"A", "first line\n    second line\n\tthird line", "C", "m()"},
+        first.toArray(1, first.size() - 2));
+    assertArrayEquals(new String[] {"B", "second", "C", "n()"}, records.get(1).toArray());
+    // Without multi-line support every line is a record.
+    assertEquals(4, new TsvReader(path, false).count());
+  }
+
+  @Test
+  public void trailing_line_without_newline() throws IOException {
+    List<TsvRecord> records = read(HEADER + "A\tfirst\tC\tm()\nB\tsecond\tC\tn()", true);
+    assertEquals(2, records.size());
+    assertArrayEquals(new String[] {"B", "second", "C", "n()"}, records.get(1).toArray());
+  }
+
+  @Test
+  public void carriage_returns_are_trimmed() throws IOException {
+    List<TsvRecord> records = read(HEADER + "A\tfirst\tC\tm()\r\n", false);
+    assertEquals(1, records.size());
+    assertEquals("m()", records.get(0).get(3));
+  }
+
+  @Test
+  public void empty_file() throws IOException {
+    assertEquals(0, read("", true).size());
+    assertEquals(0, new TsvReader(write(""), false).count());
+    assertEquals(0, read(HEADER, true).size());
+    assertEquals(0, new TsvReader(write(HEADER), true).map(TsvRecord::toArray).size());
+  }
+
+  @Test
+  public void map_keeps_order_and_drops_nulls() throws IOException {
+    Path path = write(HEADER + "A\t1\tC\tm()\nB\t2\tC\tm()\nC\t3\tC\tm()\n");
+    List<String> values =
+        new TsvReader(path, false).map(record -> record.get(0).equals("B") ? null : record.get(1));
+    assertEquals(Arrays.asList("1", "3"), values);
+  }
+
+  @Test
+  public void count_matches_indexed_entries() throws IOException {
+    Path path =
+        write(
+            HEADER
+                + "A\tfirst line\n    second line\tC\tm()\n"
+                + "B\tsecond\tC\tn()\n"
+                + "\n"
+                + "C\tthird\n\tcontinued\tD\tk()");
+    Index<Error> index = new Index<>(path, Error::new);
+    index.index();
+    assertEquals(3, index.total);
+    assertEquals(index.total, new TsvReader(path, true).count());
+  }
+
+  private List<TsvRecord> read(String content, boolean multiLine) throws IOException {
+    List<TsvRecord> records = new ArrayList<>();
+    new TsvReader(write(content), multiLine).forEach(records::add);
+    return records;
+  }
+
+  private Path write(String content) throws IOException {
+    Path path = Files.createTempFile(dir, "records", ".tsv");
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
@@ -22,12 +22,18 @@
 
 package edu.ucr.cs.riple.injector;
 
+import java.nio.file.Path;
 import java.util.List;
 
 public class Injector {
   public final MODE mode;
   public final boolean KEEP;
   public static boolean LOG;
+  /**
+   * If set, modified files are written under this directory (mirroring their absolute path)
+   * instead of overwriting the original files.
+   */
+  public final Path overlay;
 
   public enum MODE {
     BATCH,
@@ -35,8 +41,13 @@ public class Injector {
   }
 
   public Injector(MODE mode, boolean keepStyle) {
+    this(mode, keepStyle, null);
+  }
+
+  public Injector(MODE mode, boolean keepStyle, Path overlay) {
     this.mode = mode;
     this.KEEP = keepStyle;
+    this.overlay = overlay;
   }
 
   public static InjectorBuilder builder() {
@@ -49,7 +60,7 @@ public class Injector {
     for (WorkList workList : workLists) {
       report.totalNumberOfDistinctFixes += workList.getFixes().size();
     }
-    report.processed = new Machine(workLists, mode, KEEP).start();
+    report.processed = new Machine(workLists, mode, KEEP, overlay).start();
     return report;
   }
 
@@ -60,6 +71,7 @@ public class Injector {
   public static class InjectorBuilder {
     private MODE mode = MODE.BATCH;
     private boolean keepStyle = false;
+    private Path overlay = null;
 
     public InjectorBuilder setMode(MODE mode) {
       this.mode = mode;
@@ -71,8 +83,13 @@ public class Injector {
       return this;
     }
 
+    public InjectorBuilder setOverlay(Path overlay) {
+      this.overlay = overlay;
+      return this;
+    }
+
     public Injector build() {
-      return new Injector(mode, keepStyle);
+      return new Injector(mode, keepStyle, overlay);
     }
   }
 }
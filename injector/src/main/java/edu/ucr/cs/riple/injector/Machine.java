@@ -40,6 +40,7 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -51,13 +52,19 @@ public class Machine {
   private final Injector.MODE mode;
   private final DefaultPrettyPrinter printer;
   private final boolean keep;
+  private final Path overlay;
   private final int total;
   private int processed = 0;
 
   public Machine(List<WorkList> workLists, Injector.MODE mode, boolean keep) {
+    this(workLists, mode, keep, null);
+  }
+
+  public Machine(List<WorkList> workLists, Injector.MODE mode, boolean keep, Path overlay) {
     this.workLists = workLists;
     this.mode = mode;
     this.keep = keep;
+    this.overlay = overlay;
     this.printer = new DefaultPrettyPrinter(new DefaultPrinterConfiguration());
     AtomicInteger sum = new AtomicInteger();
     workLists.forEach(workList -> sum.addAndGet(workList.getFixes().size()));
@@ -68,6 +75,9 @@ public class Machine {
     if (mode.equals(Injector.MODE.TEST)) {
       uri = uri.replace("src", "out");
     }
+    if (overlay != null) {
+      uri = locateInOverlay(uri).toString();
+    }
     String pathToFileDirectory = uri.substring(0, uri.lastIndexOf("/"));
     try {
       Files.createDirectories(Paths.get(pathToFileDirectory + "/"));
@@ -86,7 +96,12 @@ public class Machine {
     for (WorkList workList : workLists) {
       CompilationUnit tree;
       try {
-        CompilationUnit tmp = StaticJavaParser.parse(new File(workList.getUri()));
+        File file = new File(workList.getUri());
+        if (overlay != null && Files.exists(locateInOverlay(workList.getUri()))) {
+          // File is already modified in this overlay.
+          file = locateInOverlay(workList.getUri()).toFile();
+        }
+        CompilationUnit tmp = StaticJavaParser.parse(file);
         tree = keep ? LexicalPreservingPrinter.setup(tmp) : tmp;
       } catch (FileNotFoundException exception) {
         continue;
@@ -111,6 +126,12 @@ public class Machine {
     return processed;
   }
 
+  /** Returns the path to the copy of the file at the given uri in the overlay directory. */
+  private Path locateInOverlay(String uri) {
+    Path path = Paths.get(uri).toAbsolutePath();
+    return overlay.resolve(path.getRoot().relativize(path));
+  }
+
   private boolean applyFix(CompilationUnit tree, Fix fix) {
     boolean success = false;
     TypeDeclaration<?> clazz =
@@ -25,14 +25,13 @@ import sys
 import json
 import shutil
 import time
-import xmltodict
 import tools
 from tools import delete
 from tools import uprint
 from os.path import join
 
 if not (len(sys.argv) in [2, 3]):
-    raise ValueError("Needs one argument to run: diagnose/apply/pre/loop/clean")
+    raise ValueError("Needs one argument to run: diagnose/resume/apply/pre/loop/clean")
 
 if int(len(sys.argv)) == 2:
     data = json.load(open('config.json'))
@@ -55,6 +54,7 @@ format_style = "false" if format_style not in ["true", "false"] else format_styl
 def clean(full=True):
     uprint("Cleaning...")
     delete(join(out_dir, "diagnose_report.json"))
+    delete(join(out_dir, "diagnose_report.ndjson"))
     delete(join(out_dir, "fixes.tsv"))
     delete(join(out_dir, "diagnose.json"))
     delete(join(out_dir, "cleaned.json"))
@@ -74,16 +74,6 @@ def prepare():
         json.dump(failed, outfile)
 
 
-def build_project(init_active="true"):
-    uprint("Building project...")
-    new_config = xmltodict.parse(open('template.xml').read()).copy()
-    new_config['serialization']['annotation']['nullable'] = data['ANNOTATION']['NULLABLE']
-    new_config['serialization']['annotation']['nonnull'] = data['ANNOTATION']['NONNULL']
-    new_config['serialization']['fieldInitInfo']['@active'] = init_active
-    tools.write_nullaway_config_in_xml(new_config, nullaway_config_path)
-    os.system(build_command + " > /dev/null 2>&1")
-
-
 def apply_fixes_at(path):
     tools.run_jar("apply", path, format_style)
 
@@ -91,65 +81,77 @@ def apply_fixes_at(path):
 def preprocess():
     tools.write_css_config_in_xml(True, out_dir, css_config_path)
     uprint("Started preprocessing task...")
-    method_path = join(out_dir, "field_init.tsv")
-    delete(method_path)
+    delete(join(out_dir, "field_init.tsv"))
     delete(join(out_dir, "init_methods.json"))
-    build_project()
-    fixes = tools.load_tsv_to_dict(out_dir + "/fixes.tsv")
-    uprint("Detecting uninitialized class fields...")
-    field_no_inits = [x for x in fixes if (x['reason'] == 'FIELD_NO_INIT' and x['location'] == 'FIELD')]
-    uprint("Detecting initializers...")
-    raw_methods = tools.load_tsv_to_dict(method_path)
-    init_methods = {"fixes": []}
-    methods = []
-    for method in raw_methods:
-        seen = None
-        for discovered in methods:
-            if discovered['method'] == method['method'] and discovered['class'] == method['method']:
-                seen = discovered
-                break
-        if seen is None:
-            method['fields'] = []
-            seen = method
-            methods.append(seen)
-        seen['fields'].append(method['field'])
-    for field in field_no_inits:
-        candidate_method = None
-        max_size = 0
-        for method in methods:
-            if method['class'] == field['class']:
-                if field['param'] in method['fields'] and len(method['fields']) > max_size:
-                    candidate_method = method.copy()
-                    max_size = len(method['fields'])
-        if candidate_method is not None:
-            del candidate_method['fields']
-            candidate_method['location'] = "METHOD"
-            candidate_method['inject'] = True
-            candidate_method['annotation'] = data['ANNOTATION']['INITIALIZER']
-            candidate_method['param'] = ""
-            candidate_method['reason'] = "Initializer"
-            if candidate_method not in init_methods['fixes']:
-                init_methods['fixes'].append(candidate_method)
-    uprint("Annotating as {}".format(data['ANNOTATION']['INITIALIZER']))
-    init_methods_path = join(out_dir, "init_methods.json")
-    with open(init_methods_path, 'w') as outfile:
-        json.dump(init_methods, outfile)
-    apply_fixes_at(init_methods_path)
-
-
-def explore():
+    tools.run_jar("preprocess", nullaway_config_path, "'{}'".format(build_command), data['ANNOTATION']['NULLABLE'], data['ANNOTATION']['NONNULL'], data['ANNOTATION']['INITIALIZER'], format_style)
+
+
+def explore_options():
+    options = []
+    if 'COMPILER_ARGS' in data:
+        options.append("--compiler-args={}".format(data['COMPILER_ARGS']))
+    if data.get('INCREMENTAL', False):
+        options.append("--incremental")
+    if 'BUILD_CACHE' in data:
+        options.append("--build-cache={}".format(data['BUILD_CACHE']))
+        if 'BUILD_CACHE_SIZE' in data:
+            options.append("--build-cache-size={}".format(data['BUILD_CACHE_SIZE']))
+    if 'RESULT_STORE' in data:
+        options.append("--result-store={}".format(data['RESULT_STORE']))
+    if 'MODULE_MAP' in data:
+        module_command = "cd {} && {} && cd {}".format(data['REPO_ROOT_PATH'], data['MODULE_BUILD_COMMAND'], data['PROJECT_PATH'])
+        options.append("--module-map={}".format(data['MODULE_MAP']))
+        options.append("'--module-command={}'".format(module_command))
+    if data.get('OVERLAY', False):
+        options.append("--overlay")
+    if data.get('PIPELINE', False):
+        options.append("--pipeline")
+    if data.get('BISECT', False):
+        options.append("--bisect")
+    if 'DEEP_MIN_GAIN' in data:
+        options.append("--deep-min-gain={}".format(data['DEEP_MIN_GAIN']))
+    if 'DEEP_MIN_CHANGED' in data:
+        options.append("--deep-min-changed={}".format(data['DEEP_MIN_CHANGED']))
+    if data.get('DEEP_FREEZE', False):
+        options.append("--deep-freeze")
+    if 'TIME_BUDGET' in data:
+        options.append("--time-budget={}".format(data['TIME_BUDGET']))
+    if 'BUILD_BUDGET' in data:
+        options.append("--build-budget={}".format(data['BUILD_BUDGET']))
+    if int(data.get('WORKERS', 1)) > 1:
+        options.append("--workers={}".format(data['WORKERS']))
+        options.append("--project-root={}".format(data['REPO_ROOT_PATH']))
+    return options
+
+
+def explore_arguments():
+    return [nullaway_config_path, "'{}'".format(build_command), data['DEPTH'], data['ANNOTATION']['NULLABLE'], format_style] + explore_options()
+
+
+def explore(resume=False):
     tools.write_css_config_in_xml(False, out_dir, css_config_path)
     uprint("Starting Exploration Phase...")
-    tools.run_jar("explore", nullaway_config_path, "'{}'".format(build_command), data['DEPTH'], data['ANNOTATION']['NULLABLE'], format_style)
+    arguments = explore_arguments()
+    if resume:
+        arguments.append("--resume")
+    tools.run_jar("explore", *arguments)
+
+
+def read_reports():
+    if os.path.exists(join(out_dir, "diagnose_report.json")):
+        with open(join(out_dir, "diagnose_report.json")) as report_file:
+            return json.load(report_file)['reports']
+    # Exploration is still running, only reports written so far are available.
+    with open(join(out_dir, "diagnose_report.ndjson")) as report_file:
+        return [json.loads(line) for line in report_file if line.endswith("\n")]
 
 
 def apply_effective_fixes():
     delete(join(out_dir, "cleaned.json"))
-    report_file = open(join(out_dir, "diagnose_report.json"))
-    reports = json.load(report_file)
+    reports = read_reports()
     cleaned = {}
     uprint("Selecting effective fixes...")
-    cleaned['fixes'] = [fix for fix in reports['reports'] if fix['effect'] < 1]
+    cleaned['fixes'] = [fix for fix in reports if fix['effect'] < 1 and fix.get('explored', True)]
     with open(join(out_dir, "cleaned.json"), 'w') as outfile:
         json.dump(cleaned, outfile)
     apply_fixes_at(join(out_dir, "cleaned.json"))
@@ -158,24 +160,9 @@ def apply_effective_fixes():
 def run():
     uprint("Executing run command")
     delete(join(out_dir, "log.txt"))
-    finished = False
-    while not finished:
-        finished = True
-        explore()
-        uprint("Explore task finished, applying effective fixes...")
-        apply_effective_fixes()
-        new_reports = json.load(open(join(out_dir, "diagnose_report.json")))
-        if len(new_reports['reports']) == 0:
-            uprint("No changes, shutting down.")
-            break
-        old_reports = json.load(open(join(out_dir, "reports.json")))
-        for report in new_reports['reports']:
-            if report not in old_reports['reports']:
-                finished = False
-                old_reports['reports'].append(report)
-        with open(join(out_dir, "reports.json"), 'w') as outfile:
-            json.dump(old_reports, outfile)
-            outfile.close()
+    tools.write_css_config_in_xml(False, out_dir, css_config_path)
+    # Explore/apply iterations run in a single process until no new fix is suggested.
+    tools.run_jar("run", *explore_arguments())
     clean(full=False)
 
 
@@ -185,6 +172,8 @@ if command == "preprocess":
     preprocess()
 elif command == "explore":
     explore()
+elif command == "resume":
+    explore(resume=True)
 elif command == "apply":
     apply_effective_fixes()
 elif command == "run":